@@ -0,0 +1,82 @@
+package com.doc_manager.bench;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sinh file PDF/DOCX mẫu trong bộ nhớ lúc setup benchmark, không cần lưu file nhị phân trong repo.
+ */
+public final class Fixtures {
+
+    private static final int LINE_CHARS = 90;
+    private static final int LINES_PER_PAGE = 50;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Font chuẩn của PDF chỉ có bảng mã WinAnsi nên chữ tiếng Việt được bỏ dấu;
+     * số ký tự và cấu trúc trang vẫn như tài liệu thật.
+     */
+    public static byte[] pdf(String text) throws IOException {
+        List<String> lines = lines(stripDiacritics(text));
+        try(PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()){
+            for(int i = 0; i < lines.size(); i += LINES_PER_PAGE){
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try(PDPageContentStream content = new PDPageContentStream(doc, page)){
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 10);
+                    content.setLeading(14);
+                    content.newLineAtOffset(40, 750);
+                    for(String line : lines.subList(i, Math.min(lines.size(), i + LINES_PER_PAGE))){
+                        content.showText(line);
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    public static byte[] docx(String text) throws IOException {
+        try(XWPFDocument doc = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()){
+            for(String paragraph : text.split("\n")){
+                doc.createParagraph().createRun().setText(paragraph);
+            }
+            doc.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        for(String word : text.split("\\s+")){
+            if(line.length() + word.length() + 1 > LINE_CHARS){
+                lines.add(line.toString());
+                line.setLength(0);
+            }
+            if(!line.isEmpty()) line.append(' ');
+            line.append(word);
+        }
+        if(!line.isEmpty()) lines.add(line.toString());
+        return lines;
+    }
+
+    private static String stripDiacritics(String text) {
+        return Normalizer.normalize(text.replace('đ', 'd').replace('Đ', 'D'), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+    }
+}
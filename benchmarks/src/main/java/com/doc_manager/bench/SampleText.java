@@ -0,0 +1,48 @@
+package com.doc_manager.bench;
+
+import java.util.Random;
+
+/**
+ * Văn bản giả lập kiểu hợp đồng/hóa đơn: từ tiếng Việt hoặc tiếng Anh, số trang, ngày tháng
+ * và thỉnh thoảng có PII (email, số CMND, mã số thuế, số tài khoản).
+ */
+public final class SampleText {
+
+    public enum Language { VI, EN, MIXED }
+
+    private static final String[] VI = {"hợp", "đồng", "mua", "bán", "giữa", "bên", "A", "và", "B", "điều",
+            "khoản", "thanh", "toán", "ngày", "tháng", "năm", "2024", "trang", "12", "số", "tiền", "VNĐ",
+            "1.000.000", "người", "đại", "diện", "công", "ty", "trách", "nhiệm", "hữu", "hạn", "địa", "chỉ",
+            "Hà", "Nội", "thành", "phố", "Hồ", "Chí", "Minh", "giao", "hàng", "bảo", "hành", "phụ", "lục"};
+    private static final String[] EN = {"contract", "party", "agrees", "payment", "within", "days", "of", "the",
+            "invoice", "amount", "due", "date", "page", "12", "section", "clause", "buyer", "seller", "shall",
+            "deliver", "goods", "warranty", "period", "company", "limited", "address", "representative",
+            "2024", "USD", "1,000,000", "appendix", "terms", "and", "conditions"};
+
+    private SampleText() {
+    }
+
+    public static String generate(int length, Language language, Random random) {
+        StringBuilder sb = new StringBuilder(length + 64);
+        while(sb.length() < length){
+            int roll = random.nextInt(200);
+            if(roll == 0) sb.append("user").append(random.nextInt(1000)).append("@example.com.vn");
+            else if(roll == 1) sb.append(100000000 + random.nextInt(899999999));
+            else if(roll == 2) sb.append("03").append(10000000 + random.nextInt(89999999));
+            else if(roll == 3) sb.append(language == Language.EN ? "account: " : "số tài khoản: ")
+                    .append(random.nextInt(99999)).append(' ').append(random.nextInt(99999));
+            else sb.append(word(language, random));
+            sb.append(random.nextInt(12) == 0 ? ".\n" : " ");
+        }
+        return sb.toString();
+    }
+
+    private static String word(Language language, Random random) {
+        String[] words = switch(language){
+            case VI -> VI;
+            case EN -> EN;
+            case MIXED -> random.nextBoolean() ? VI : EN;
+        };
+        return words[random.nextInt(words.length)];
+    }
+}
@@ -0,0 +1,79 @@
+package com.doc_manager.detector;
+
+import com.doc_manager.bench.SampleText;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * So sánh bốn lượt regex cũ của ScanService với {@link PiiDetector} một lượt,
+ * trên văn bản tiếng Việt, tiếng Anh và trộn cả hai.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PiiDetectorBenchmark {
+
+    private static final Pattern EMAIL = Pattern.compile("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}");
+    private static final Pattern CMND = Pattern.compile("\\b\\d{9}\\b|\\b\\d{12}\\b");
+    private static final Pattern TAX = Pattern.compile("\\b\\d{10}\\b");
+    private static final Pattern BANK = Pattern.compile("(?i)(số tài khoản|stk|account)[:\\s]*([0-9\\- ]{6,30})");
+
+    @Param({"10000", "1000000"})
+    public int textLength;
+
+    @Param({"VI", "EN", "MIXED"})
+    public SampleText.Language language;
+
+    private String text;
+    private char[] chars;
+    private PiiDetector detector;
+
+    @Setup
+    public void setup() {
+        detector = new PiiDetector(List.of(
+                new EmailRule(),
+                new DigitLengthRule("CMND", 9, 12),
+                new DigitLengthRule("TAX", 10),
+                new KeywordNumberRule("BANK", List.of("số tài khoản", "stk", "account"))), 1000);
+        text = SampleText.generate(textLength, language, new Random(7));
+        chars = text.toCharArray();
+    }
+
+    @Benchmark
+    public List<String> regexFourPasses() {
+        List<String> labels = new ArrayList<>();
+        Matcher m = EMAIL.matcher(text);
+        while(m.find()) labels.add("EMAIL:" + m.group());
+        m = CMND.matcher(text);
+        while(m.find()) labels.add("CMND:" + m.group());
+        m = TAX.matcher(text);
+        while(m.find()) labels.add("TAX:" + m.group());
+        m = BANK.matcher(text);
+        while(m.find()) labels.add("BANK:" + m.group(2));
+        return labels;
+    }
+
+    @Benchmark
+    public DetectionResult singlePassDetector() {
+        return detector.detect(text);
+    }
+
+    /** Đường của ScanService: Tika đẩy từng mảnh nhỏ vào session, detector xử lý theo đoạn. */
+    @Benchmark
+    public DetectionResult streamingSession() {
+        DetectionSession session = detector.newSession(65536);
+        for(int i = 0; i < chars.length; i += 8192){
+            session.feed(chars, i, Math.min(8192, chars.length - i));
+        }
+        return session.finish();
+    }
+}
@@ -0,0 +1,51 @@
+package com.doc_manager.extraction;
+
+import com.doc_manager.bench.Fixtures;
+import com.doc_manager.bench.SampleText;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trích xuất văn bản bằng Tika (in-process) từ PDF/DOCX sinh sẵn, sink chỉ đếm ký tự
+ * để đo riêng phần parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TextExtractionBenchmark {
+
+    @Param({"pdf", "docx"})
+    public String format;
+
+    @Param({"20000", "500000"})
+    public int textLength;
+
+    private byte[] file;
+    private TextExtractor extractor;
+
+    @Setup
+    public void setup() throws Exception {
+        String text = SampleText.generate(textLength, SampleText.Language.MIXED, new Random(7));
+        file = "pdf".equals(format) ? Fixtures.pdf(text) : Fixtures.docx(text);
+
+        // giá trị như application.properties
+        extractor = new TextExtractor();
+        ReflectionTestUtils.setField(extractor, "maxChars", 20_000_000L);
+        ReflectionTestUtils.setField(extractor, "maxMillis", 120_000L);
+        ReflectionTestUtils.setField(extractor, "maxEmbeddedDepth", 3);
+    }
+
+    @Benchmark
+    public long extract() throws Exception {
+        long[] chars = new long[1];
+        extractor.extract(new ByteArrayInputStream(file), (ch, start, length) -> chars[0] += length);
+        return chars[0];
+    }
+}
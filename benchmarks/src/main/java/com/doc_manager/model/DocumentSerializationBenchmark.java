@@ -0,0 +1,84 @@
+package com.doc_manager.model;
+
+import com.doc_manager.entity.User;
+import com.doc_manager.response.DocumentSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialize một trang document: entity {@link Document} (kèm allowedUsers như GET /{id})
+ * so với projection {@link DocumentSummary} mà API danh sách trả về.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentSerializationBenchmark {
+
+    @Param({"50", "200"})
+    public int pageSize;
+
+    @Param({"0", "20"})
+    public int sharedUsers;
+
+    private ObjectMapper objectMapper;
+    private List<Document> documents;
+    private List<DocumentSummary> summaries;
+
+    @Setup
+    public void setup() {
+        // cùng cấu hình mặc định Spring dùng cho response (JavaTimeModule, ngày dạng ISO-8601)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        Instant now = Instant.parse("2024-06-01T08:00:00Z");
+        documents = new ArrayList<>();
+        summaries = new ArrayList<>();
+        for(int i = 0; i < pageSize; i++){
+            Set<User> users = new HashSet<>();
+            for(int u = 0; u < sharedUsers; u++){
+                User user = new User();
+                user.setUsername("user-" + u);
+                user.setName("Người dùng " + u);
+                user.setEmail("user-" + u + "@example.com");
+                user.setPassword("$2a$10$abcdefghijklmnopqrstuv");
+                users.add(user);
+            }
+            Document doc = Document.builder()
+                    .id((long) i)
+                    .objectName("3f1c2a9e-7b4d-4c1e-9a8f-0d2b6e5c4a1b-hop-dong-" + i + ".pdf")
+                    .filename("hop-dong-" + i + ".pdf")
+                    .title("Hợp đồng mua bán số " + i)
+                    .description("Hợp đồng giữa bên A và bên B, phụ lục kèm theo")
+                    .size(1_048_576L + i)
+                    .uploadedBy("owner@example.com")
+                    .uploadedAt(now.minusSeconds(i * 60L))
+                    .status(i % 5 == 0 ? "FLAGGED" : "SCANNED")
+                    .contentHash("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+                    .labelsJson(i % 5 == 0 ? "[\"EMAIL:a@example.com\",\"CMND:012345678\"]" : "[]")
+                    .allowedUsers(users)
+                    .build();
+            documents.add(doc);
+            summaries.add(new DocumentSummary(doc.getId(), doc.getTitle(), doc.getFilename(), doc.getSize(),
+                    doc.getStatus(), doc.getUploadedBy(), doc.getUploadedAt()));
+        }
+    }
+
+    @Benchmark
+    public byte[] entities() throws Exception {
+        return objectMapper.writeValueAsBytes(documents);
+    }
+
+    @Benchmark
+    public byte[] summaries() throws Exception {
+        return objectMapper.writeValueAsBytes(summaries);
+    }
+}
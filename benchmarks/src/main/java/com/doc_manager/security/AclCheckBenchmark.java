@@ -0,0 +1,71 @@
+package com.doc_manager.security;
+
+import com.doc_manager.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Kiểm tra quyền xem theo số người được chia sẻ: duyệt {@code allowedUsers} của entity như bản cũ
+ * so với {@link AclEntry} (int[] đã sắp xếp) đang dùng. Đo trường hợp xấu nhất với cách cũ:
+ * user không có quyền nên phải duyệt hết danh sách.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AclCheckBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int aclSize;
+
+    private Set<User> allowedUsers;
+    private PrincipalRegistry principals;
+    private AclEntry acl;
+    private final String owner = "owner";
+    private final String member = "user-7";
+    private final String outsider = "outsider";
+
+    @Setup
+    public void setup() {
+        principals = new PrincipalRegistry();
+        allowedUsers = new HashSet<>();
+        for(int i = 0; i < aclSize; i++){
+            User user = new User();
+            user.setUsername("user-" + i);
+            user.setEmail("user-" + i + "@example.com");
+            allowedUsers.add(user);
+        }
+        int[] readers = IntStream.range(0, aclSize)
+                .map(i -> principals.idOf("user-" + i))
+                .sorted()
+                .toArray();
+        acl = new AclEntry(principals.idOf(owner), readers);
+        principals.idOf(outsider);
+    }
+
+    @Benchmark
+    public boolean entityScanMiss() {
+        return owner.equals(outsider) || allowedUsers.stream().anyMatch(u -> u.getUsername().equals(outsider));
+    }
+
+    @Benchmark
+    public boolean entityScanHit() {
+        return owner.equals(member) || allowedUsers.stream().anyMatch(u -> u.getUsername().equals(member));
+    }
+
+    @Benchmark
+    public boolean aclEntryMiss() {
+        return acl.canRead(principals.idOf(outsider));
+    }
+
+    @Benchmark
+    public boolean aclEntryHit() {
+        return acl.canRead(principals.idOf(member));
+    }
+}
@@ -0,0 +1,156 @@
+package com.doc_manager.cache;
+
+import com.doc_manager.service.MinioService;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Cache file trên đĩa local cho các object hay được tải, đặt giữa download và MinIO.
+ *
+ * Khóa là object name + ETag nên nội dung cũ không bao giờ được phục vụ cho phiên bản mới.
+ * Caffeine (W-TinyLFU) loại bỏ theo tổng số byte; file bị xóa khỏi đĩa khi entry bị loại.
+ * Nhiều request cùng lúc cho một object chưa có chỉ tải từ MinIO một lần.
+ */
+@Slf4j
+@Service
+public class BlobCache {
+
+    public record CachedBlob(Path path, long size) {
+    }
+
+    private final MinioService minioService;
+    private final Path dir;
+    private final boolean enabled;
+    private final long maxObjectBytes;
+    private final ExecutorService fillExecutor;
+    private final AsyncCache<String, CachedBlob> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bypasses;
+    private final Counter hitBytes;
+
+    public BlobCache(MinioService minioService, MeterRegistry meterRegistry,
+                     @Value("${app.cache.blob.enabled}") boolean enabled,
+                     @Value("${app.cache.blob.dir}") String dir,
+                     @Value("${app.cache.blob.max-bytes}") long maxBytes,
+                     @Value("${app.cache.blob.max-object-bytes}") long maxObjectBytes,
+                     @Value("${app.cache.blob.fill-threads}") int fillThreads) {
+        this.minioService = minioService;
+        this.dir = Path.of(dir);
+        this.enabled = enabled;
+        this.maxObjectBytes = maxObjectBytes;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fillExecutor = Executors.newFixedThreadPool(fillThreads, r -> {
+            Thread t = new Thread(r, "blob-cache-fill-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedBlob blob) -> (int) Math.min(Integer.MAX_VALUE, blob.size()))
+                .removalListener((String key, CachedBlob blob, RemovalCause cause) -> {
+                    if(blob != null) deleteQuietly(blob.path());
+                })
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "blob");
+        meterRegistry.gauge("blob.cache.weighted.bytes", cache,
+                c -> c.synchronous().policy().eviction().map(e -> (double) e.weightedSize().orElse(0)).orElse(0.0));
+        this.hits = meterRegistry.counter("blob.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("blob.cache.requests", "result", "miss");
+        this.bypasses = meterRegistry.counter("blob.cache.requests", "result", "bypass");
+        this.hitBytes = meterRegistry.counter("blob.cache.served.bytes");
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(dir);
+        // file của lần chạy trước không có trong cache (ở bộ nhớ) nên không dùng lại được
+        try(Stream<Path> files = Files.list(dir)){
+            files.forEach(BlobCache::deleteQuietly);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fillExecutor.shutdownNow();
+    }
+
+    /**
+     * Mở đoạn [position, position + count) của object ở phiên bản {@code etag}, tải vào cache nếu chưa có.
+     * Trả về null khi không phục vụ được từ cache (tắt, object quá lớn, lỗi tải): caller đọc thẳng từ MinIO.
+     */
+    public FileRegion open(String objectName, String etag, long size, long position, long count) {
+        if(!enabled || size > maxObjectBytes){
+            bypasses.increment();
+            return null;
+        }
+        String key = objectName + "@" + etag;
+        CompletableFuture<CachedBlob> present = cache.getIfPresent(key);
+        if(present != null && present.isDone() && !present.isCompletedExceptionally()) hits.increment();
+        else misses.increment();
+
+        try {
+            CachedBlob blob = cache.get(key, (k, executor) ->
+                    CompletableFuture.supplyAsync(() -> fill(objectName, size), fillExecutor)).join();
+            FileChannel channel = FileChannel.open(blob.path(), StandardOpenOption.READ);
+            hitBytes.increment(count);
+            return new FileRegion(channel, position, count);
+        } catch(CompletionException | IOException e){
+            // lỗi tải (future lỗi tự bị bỏ khỏi cache) hoặc file vừa bị loại giữa get và open
+            log.debug("Blob cache unavailable for {}", objectName, e);
+            return null;
+        }
+    }
+
+    /** Xóa mọi phiên bản của object, gọi khi object bị xóa khỏi MinIO. */
+    public void invalidate(String objectName) {
+        String prefix = objectName + "@";
+        cache.synchronous().asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private CachedBlob fill(String objectName, long size) {
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(dir, "blob-", ".tmp");
+            try(InputStream is = minioService.getFileStream(objectName)){
+                Files.copy(is, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            long written = Files.size(tmp);
+            if(written != size) throw new IOException("Size mismatch for " + objectName + ": " + written + " != " + size);
+            return new CachedBlob(tmp, written);
+        } catch(Exception e){
+            if(tmp != null) deleteQuietly(tmp);
+            throw new CompletionException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try { Files.deleteIfExists(path); }
+        catch(IOException e){ log.warn("Failed to delete cached blob {}", path, e); }
+    }
+}
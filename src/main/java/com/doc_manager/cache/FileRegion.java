@@ -0,0 +1,10 @@
+package com.doc_manager.cache;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * Một đoạn file đã mở sẵn để làm body response; {@link FileRegionHttpMessageConverter} ghi bằng
+ * {@link FileChannel#transferTo} rồi đóng channel.
+ */
+public record FileRegion(FileChannel channel, long position, long count) {
+}
@@ -0,0 +1,58 @@
+package com.doc_manager.cache;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Ghi {@link FileRegion} ra response bằng {@link FileChannel#transferTo}: dữ liệu đi từ page cache
+ * ra socket mà không qua buffer trên heap của ứng dụng.
+ */
+public class FileRegionHttpMessageConverter extends AbstractHttpMessageConverter<FileRegion> {
+
+    public FileRegionHttpMessageConverter() {
+        super(MediaType.ALL);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return FileRegion.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected FileRegion readInternal(Class<? extends FileRegion> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("FileRegion is write-only", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(FileRegion region, MediaType contentType) {
+        return region.count();
+    }
+
+    @Override
+    protected void writeInternal(FileRegion region, HttpOutputMessage outputMessage) throws IOException {
+        try(FileChannel channel = region.channel()){
+            WritableByteChannel out = Channels.newChannel(outputMessage.getBody());
+            long position = region.position();
+            long remaining = region.count();
+            while(remaining > 0){
+                long written = channel.transferTo(position, remaining, out);
+                if(written <= 0) break;
+                position += written;
+                remaining -= written;
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.doc_manager.cache;
+
+import com.doc_manager.entity.Authority;
+import com.doc_manager.entity.Role;
+import com.doc_manager.entity.User;
+import com.doc_manager.service.CustomUserDetailsService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Giữ cache L2 của Hibernate (User/Role/Authority) và cache UserDetails nhất quán giữa các node.
+ * Mỗi thay đổi được phát bằng {@code pg_notify} trong cùng transaction nên chỉ tới node khác khi commit;
+ * mỗi node giữ một kết nối LISTEN riêng (mở thẳng qua driver, không chiếm kết nối của pool Hikari)
+ * và xóa phần cache tương ứng. Mất kết nối thì xóa toàn bộ khi nối lại
+ * vì có thể đã lỡ thông báo; TTL của các region giới hạn độ trễ trong lúc mất kết nối.
+ */
+@Slf4j
+@Component
+public class SecurityGraphCache {
+
+    private static final String CHANNEL = "security_graph_cache";
+
+    private final Cache cache;
+    private final CustomUserDetailsService userDetailsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    // bỏ qua thông báo do chính node này phát
+    private final String sender = UUID.randomUUID().toString();
+
+    @Value("${app.security.cache.listen-poll-ms}") private int pollMillis;
+    @Value("${app.security.cache.reconnect-delay-ms}") private long reconnectDelayMillis;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public SecurityGraphCache(EntityManagerFactory entityManagerFactory, CustomUserDetailsService userDetailsService,
+                              JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.userDetailsService = userDetailsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+    }
+
+    public void userChanged(UUID id, String username) {
+        publish(Kind.USER, id, username);
+    }
+
+    public void roleChanged(UUID id) {
+        publish(Kind.ROLE, id, null);
+    }
+
+    public void authorityChanged(UUID id) {
+        publish(Kind.AUTHORITY, id, null);
+    }
+
+    /** Xóa toàn bộ trên mọi node, ví dụ sau khi sửa user_roles/role_authorities trực tiếp trong DB. */
+    public void evictAll() {
+        publish(Kind.ALL, null, null);
+    }
+
+    private void publish(Kind kind, UUID id, String username) {
+        String payload = String.join("|", sender, kind.name(),
+                id == null ? "" : id.toString(), username == null ? "" : username);
+        jdbcTemplate.queryForObject("select pg_notify(?, ?)::text", String.class, CHANNEL, payload);
+
+        // node hiện tại: Hibernate đã tự cập nhật L2, nhưng cache UserDetails/query vẫn cần xóa sau commit
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(kind, id, username);
+                }
+            });
+        } else {
+            evict(kind, id, username);
+        }
+    }
+
+    private void evict(Kind kind, UUID id, String username) {
+        switch(kind){
+            case USER -> {
+                cache.evictEntityData(User.class, id);
+                cache.evictCollectionData(User.class.getName() + ".roles", id);
+                if(username != null && !username.isEmpty()) userDetailsService.evict(username);
+                else userDetailsService.evictAll();
+            }
+            case ROLE -> {
+                cache.evictEntityData(Role.class, id);
+                cache.evictCollectionData(Role.class.getName() + ".authorities", id);
+                // không biết user nào có role này
+                cache.evictCollectionData(User.class.getName() + ".roles");
+                userDetailsService.evictAll();
+            }
+            case AUTHORITY -> {
+                cache.evictEntityData(Authority.class, id);
+                userDetailsService.evictAll();
+            }
+            case ALL -> {
+                cache.evictEntityData(User.class);
+                cache.evictEntityData(Role.class);
+                cache.evictEntityData(Authority.class);
+                cache.evictCollectionData(User.class.getName() + ".roles");
+                cache.evictCollectionData(Role.class.getName() + ".authorities");
+                userDetailsService.evictAll();
+            }
+        }
+        // timestamp bảng chỉ được cập nhật trên node ghi nên query cache của node khác phải xóa
+        cache.evictQueryRegions();
+    }
+
+    private void receive(String payload) {
+        String[] parts = payload.split("\\|", -1);
+        if(parts.length != 4 || parts[0].equals(sender)) return;
+        try {
+            Kind kind = Kind.valueOf(parts[1]);
+            evict(kind, parts[2].isEmpty() ? null : UUID.fromString(parts[2]), parts[3]);
+        } catch(IllegalArgumentException e){
+            log.warn("Ignoring malformed cache invalidation '{}'", payload);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "security-cache-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        listener.join(pollMillis * 2L);
+    }
+
+    private void listen() {
+        boolean reconnect = false;
+        while(running){
+            try(Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())){
+                try(Statement statement = connection.createStatement()){
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if(reconnect) evict(Kind.ALL, null, null);
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                while(running){
+                    PGNotification[] notifications = pg.getNotifications(pollMillis);
+                    if(notifications == null) continue;
+                    for(PGNotification notification : notifications) receive(notification.getParameter());
+                }
+            } catch(SQLException | RuntimeException e){
+                if(!running) return;
+                log.warn("Security cache listener disconnected, retrying in {} ms", reconnectDelayMillis, e);
+                reconnect = true;
+                try { Thread.sleep(reconnectDelayMillis); }
+                catch(InterruptedException ie){ return; }
+            }
+        }
+    }
+
+    private enum Kind { USER, ROLE, AUTHORITY, ALL }
+}
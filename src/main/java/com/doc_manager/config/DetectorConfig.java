@@ -0,0 +1,45 @@
+package com.doc_manager.config;
+
+import com.doc_manager.detector.DetectorRule;
+import com.doc_manager.detector.DigitLengthRule;
+import com.doc_manager.detector.EmailRule;
+import com.doc_manager.detector.KeywordNumberRule;
+import com.doc_manager.detector.PiiDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Các luật PII mặc định. Luật mới chỉ cần khai báo thêm một bean {@link DetectorRule}.
+ */
+@Configuration
+public class DetectorConfig {
+
+    @Bean
+    public DetectorRule emailRule() {
+        return new EmailRule();
+    }
+
+    @Bean
+    public DetectorRule cmndRule() {
+        return new DigitLengthRule("CMND", 9, 12);
+    }
+
+    @Bean
+    public DetectorRule taxRule() {
+        return new DigitLengthRule("TAX", 10);
+    }
+
+    @Bean
+    public DetectorRule bankRule() {
+        return new KeywordNumberRule("BANK", List.of("số tài khoản", "stk", "account"));
+    }
+
+    @Bean
+    public PiiDetector piiDetector(List<DetectorRule> rules, @Value("${app.scan.max-findings}") int maxFindings,
+                                   @Value("${app.scan.ruleset-revision}") String revision) {
+        return new PiiDetector(rules, maxFindings, revision);
+    }
+}
@@ -0,0 +1,36 @@
+package com.doc_manager.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+
+/**
+ * Pool riêng cho việc scan (Tika + PII), giới hạn cả số worker lẫn độ dài hàng đợi
+ * để một đợt upload dồn dập không chiếm hết CPU/heap của node.
+ */
+@Configuration
+public class ScanExecutorConfig {
+
+    @Value("${app.scan.workers}") private int workers;
+    @Value("${app.scan.queue-capacity}") private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor scanExecutor(MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("scan-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        // executor.queued, executor.active, executor.pool.size... với tag name=scan
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "scan", List.of()).bindTo(meterRegistry);
+        return executor;
+    }
+}
@@ -0,0 +1,29 @@
+package com.doc_manager.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Chế độ thực thi cho request, chọn bằng {@code spring.threads.virtual.enabled} của Spring Boot:
+ * <ul>
+ *   <li>{@code false} (mặc định): pool thread của Tomcat ({@code server.tomcat.threads.max}).
+ *       Mỗi upload/download giữ một thread trong suốt lúc truyền dữ liệu tới/từ MinIO và client.</li>
+ *   <li>{@code true}: request, {@code @Scheduled} và {@code @Async} chạy trên virtual thread. Thread bị chặn bởi
+ *       client chậm hay MinIO không chiếm thread hệ điều hành nên số kết nối đồng thời chỉ còn bị giới hạn
+ *       bởi {@code server.tomcat.max-connections}.</li>
+ * </ul>
+ * Trên JRE dưới 21, Boot lặng lẽ bỏ qua thuộc tính và vẫn chạy pool thread; lớp này dừng khởi động thay vì vậy.
+ * Xem {@code SlowClientLoadRunner} trong test để so sánh hai chế độ.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    public VirtualThreadConfig() {
+        if(Runtime.version().feature() < 21)
+            throw new IllegalStateException("spring.threads.virtual.enabled=true requires Java 21+, running on " + Runtime.version());
+        log.info("Serving requests on virtual threads");
+    }
+}
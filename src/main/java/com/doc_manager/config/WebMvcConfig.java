@@ -0,0 +1,18 @@
+package com.doc_manager.config;
+
+import com.doc_manager.cache.FileRegionHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // body FileRegion (file trong blob cache) được ghi bằng transferTo
+        converters.add(0, new FileRegionHttpMessageConverter());
+    }
+}
@@ -1,14 +1,191 @@
 package com.doc_manager.controller;
 
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import com.doc_manager.cache.SecurityGraphCache;
+import com.doc_manager.model.ScanJob;
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.repository.FindingAnalyticsRepository;
+import com.doc_manager.repository.UserRepository;
+import com.doc_manager.request.ShareRequest;
+import com.doc_manager.response.ReconcileResult;
+import com.doc_manager.response.RescanProgress;
+import com.doc_manager.service.CustomUserDetailsService;
+import com.doc_manager.service.DocumentAccessService;
+import com.doc_manager.service.FindingService;
+import com.doc_manager.service.RescanScheduler;
+import com.doc_manager.service.ScanJobService;
+import com.doc_manager.service.StorageReconciler;
+import com.doc_manager.service.UserRoleService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/admin")
+@RequiredArgsConstructor
 public class AdminController {
+
+    private final ScanJobService scanJobService;
+    private final DocumentRepository docRepo;
+    private final DocumentAccessService accessService;
+    private final StorageReconciler storageReconciler;
+    private final CustomUserDetailsService userDetailsService;
+    private final SecurityGraphCache securityGraphCache;
+    private final RescanScheduler rescanScheduler;
+    private final FindingAnalyticsRepository findingAnalytics;
+    private final FindingService findingService;
+    private final UserRepository userRepo;
+    private final UserRoleService userRoleService;
+
+    private static final Set<String> BUCKETS = Set.of("hour", "day", "week", "month");
+
+    @Value("${app.findings.default-window-days}") private int defaultWindowDays;
+    @Value("${app.findings.max-window-days}") private int maxWindowDays;
+    @Value("${app.findings.max-rows}") private int maxRows;
+
     @GetMapping
     public String adminAccess() {
         return "Admin endpoint";
     }
+
+    @GetMapping("/scan-jobs/dead")
+    public List<ScanJob> deadScanJobs() {
+        return scanJobService.deadJobs();
+    }
+
+    @PostMapping("/scan-jobs/{documentId}/retry")
+    public ResponseEntity<?> retryScan(@PathVariable Long documentId) {
+        if(!docRepo.existsById(documentId)) return ResponseEntity.notFound().build();
+        scanJobService.enqueue(documentId);
+        docRepo.updateStatus(documentId, "QUEUED");
+        return ResponseEntity.ok(Map.of("message","Queued","documentId",documentId));
+    }
+
+    /** Tính lại toàn bộ quyền hiệu lực, ví dụ sau khi sửa user_roles trực tiếp trong DB. */
+    @PostMapping("/document-access/rebuild")
+    public ResponseEntity<?> rebuildDocumentAccess() {
+        int rows = accessService.rebuild();
+        return ResponseEntity.ok(Map.of("message","Rebuilt","rows",rows));
+    }
+
+    /** Tính lại quyền của một user sau khi sửa user_roles trực tiếp trong DB (gán qua API đã tự tính lại). */
+    @PostMapping("/document-access/users/{username}/refresh")
+    public ResponseEntity<?> refreshUserAccess(@PathVariable String username) {
+        accessService.refreshUsers(List.of(username));
+        userDetailsService.evict(username);
+        return ResponseEntity.ok(Map.of("message","Refreshed","username",username));
+    }
+
+    /** Gán role cho user; quyền xem theo role và cache của user được cập nhật ngay. */
+    @PostMapping("/users/{username}/roles")
+    public ResponseEntity<?> addRoles(@PathVariable String username, @Valid @RequestBody ShareRequest request) {
+        return userRepo.findByUsername(username)
+                .<ResponseEntity<?>>map(user -> ResponseEntity.ok(userRoleService.addRoles(user, request.getNames())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/users/{username}/roles")
+    public ResponseEntity<?> removeRoles(@PathVariable String username, @Valid @RequestBody ShareRequest request) {
+        return userRepo.findByUsername(username)
+                .<ResponseEntity<?>>map(user -> ResponseEntity.ok(userRoleService.removeRoles(user, request.getNames())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /** Tiến độ scan lại document theo bộ luật PII hiện tại. */
+    @GetMapping("/rescan/progress")
+    public RescanProgress rescanProgress() {
+        return rescanScheduler.progress();
+    }
+
+    /** Số document, giá trị khác nhau và lần xuất hiện theo loại PII, trong khoảng upload [from, to). */
+    @GetMapping("/findings/by-type")
+    public ResponseEntity<?> findingsByType(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant[] window = window(from, to);
+        if(window == null) return invalidWindow();
+        return ResponseEntity.ok(findingAnalytics.countByType(window[0], window[1]));
+    }
+
+    @GetMapping("/findings/by-status")
+    public ResponseEntity<?> findingsByStatus(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant[] window = window(from, to);
+        if(window == null) return invalidWindow();
+        return ResponseEntity.ok(findingAnalytics.countByStatus(window[0], window[1]));
+    }
+
+    @GetMapping("/findings/by-uploader")
+    public ResponseEntity<?> findingsByUploader(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                @RequestParam(defaultValue = "20") int limit) {
+        Instant[] window = window(from, to);
+        if(window == null) return invalidWindow();
+        return ResponseEntity.ok(findingAnalytics.countByUploader(window[0], window[1], clampRows(limit)));
+    }
+
+    /** Số document upload và bị gắn cờ theo từng khoảng thời gian (hour, day, week, month). */
+    @GetMapping("/findings/timeline")
+    public ResponseEntity<?> findingsTimeline(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                              @RequestParam(defaultValue = "day") String bucket) {
+        if(!BUCKETS.contains(bucket))
+            return ResponseEntity.badRequest().body("bucket phải là hour, day, week hoặc month");
+        Instant[] window = window(from, to);
+        if(window == null) return invalidWindow();
+        return ResponseEntity.ok(findingAnalytics.timeline(window[0], window[1], bucket));
+    }
+
+    /**
+     * Document chứa một loại PII, hoặc một giá trị cụ thể nếu có {@code value}
+     * (giá trị được hash phía server, không được lưu hay ghi log).
+     */
+    @GetMapping("/findings/documents")
+    public ResponseEntity<?> documentsWithFinding(@RequestParam String type,
+                                                  @RequestParam(required = false) String value,
+                                                  @RequestParam(defaultValue = "50") int limit) {
+        String valueHash = value == null || value.isBlank() ? null : findingService.hash(value);
+        return ResponseEntity.ok(findingAnalytics.findDocuments(type, valueHash, clampRows(limit)));
+    }
+
+    /**
+     * Xóa cache user/role/authority (L2 và UserDetails) trên mọi node, ví dụ sau khi sửa
+     * user_roles/role_authorities trực tiếp trong DB.
+     */
+    @PostMapping("/users/cache/evict")
+    public ResponseEntity<?> evictUserCache() {
+        securityGraphCache.evictAll();
+        return ResponseEntity.ok(Map.of("message","Evicted"));
+    }
+
+    /** Chạy đối soát bucket/DB ngay thay vì chờ lịch. */
+    @PostMapping("/storage/reconcile")
+    public ResponseEntity<?> reconcileStorage() {
+        ReconcileResult result = storageReconciler.reconcile();
+        if(result == null) return ResponseEntity.status(409).body("Đang đối soát trên node khác");
+        return ResponseEntity.ok(result);
+    }
+
+    // mặc định là N ngày gần nhất; khoảng rỗng hoặc quá dài bị từ chối để truy vấn luôn có giới hạn
+    private Instant[] window(Instant from, Instant to) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(defaultWindowDays));
+        if(!start.isBefore(end) || Duration.between(start, end).toDays() > maxWindowDays) return null;
+        return new Instant[]{start, end};
+    }
+
+    private ResponseEntity<?> invalidWindow() {
+        return ResponseEntity.badRequest().body("Khoảng thời gian không hợp lệ (tối đa " + maxWindowDays + " ngày)");
+    }
+
+    private int clampRows(int limit) {
+        return Math.max(1, Math.min(limit, maxRows));
+    }
 }
@@ -0,0 +1,220 @@
+package com.doc_manager.controller;
+
+import com.doc_manager.model.Document;
+import com.doc_manager.repository.DocumentFile;
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.request.BatchRequest;
+import com.doc_manager.response.BatchItemResult;
+import com.doc_manager.security.AclEntry;
+import com.doc_manager.security.DocumentAcl;
+import com.doc_manager.service.DocumentMetrics;
+import com.doc_manager.service.DocumentService;
+import com.doc_manager.service.MinioService;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Thao tác trên nhiều document trong một request. Mỗi mục có kết quả riêng nên lỗi một phần vẫn thấy được.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/documents/batch")
+@RequiredArgsConstructor
+public class BatchDocumentController {
+
+    private final MinioService minioService;
+    private final DocumentRepository docRepo;
+    private final DocumentService documentService;
+    private final DocumentAcl documentAcl;
+    private final DocumentMetrics documentMetrics;
+
+    @Value("${app.upload.max-size-bytes}") private long maxSize;
+    @Value("${app.batch.max-items}") private int maxItems;
+
+    private Authentication getAuthentication() {
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    /**
+     * Upload nhiều file; file hợp lệ được lưu lên MinIO rồi ghi document và scan job theo lô
+     * trong một transaction. Tiêu đề mặc định là tên file.
+     */
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> upload(@RequestParam("files") List<MultipartFile> files,
+                                    @RequestParam(required = false) Set<String> allowedUserEmails) {
+        if(files.size() > maxItems)
+            return ResponseEntity.badRequest().body("Tối đa " + maxItems + " file mỗi lần");
+        String username = getAuthentication().getName();
+
+        List<BatchItemResult> results = new ArrayList<>();
+        List<Document> docs = new ArrayList<>();
+        for(MultipartFile file : files){
+            String name = file.getOriginalFilename();
+            if(file.isEmpty()){ results.add(BatchItemResult.failed(name, null, "File trống")); continue; }
+            if(file.getSize() > maxSize){ results.add(BatchItemResult.failed(name, null, "File quá lớn")); continue; }
+            if(!DocumentService.isSupportedFile(name)){
+                results.add(BatchItemResult.failed(name, null, "Chỉ PDF hoặc DOCX"));
+                continue;
+            }
+            Timer.Sample sample = documentMetrics.start();
+            try {
+                String contentHash;
+                try(InputStream is = file.getInputStream()){
+                    contentHash = DocumentService.sha256(is);
+                }
+                String objectName = documentService.storeContent(contentHash, name, file.getSize(),
+                        file.getContentType(), file);
+                docs.add(Document.builder()
+                        .objectName(objectName)
+                        .contentHash(contentHash)
+                        .filename(name)
+                        .title(name)
+                        .size(file.getSize())
+                        .uploadedBy(username)
+                        .uploadedAt(Instant.now())
+                        .status("UPLOADED")
+                        .build());
+                results.add(null); // điền sau khi ghi document
+                documentMetrics.uploaded(sample, "batch", name, file.getSize(), true);
+            } catch(Exception e){
+                documentMetrics.uploaded(sample, "batch", name, file.getSize(), false);
+                log.warn("Batch upload of {} failed", name, e);
+                results.add(BatchItemResult.failed(name, null, "Lưu file thất bại"));
+            }
+        }
+
+        List<String> unresolved = List.of();
+        boolean saved = false;
+        if(!docs.isEmpty()){
+            try {
+                unresolved = documentService.registerBatch(docs, allowedUserEmails);
+                saved = true;
+            } catch(RuntimeException e){
+                log.error("Batch upload: saving {} documents failed", docs.size(), e);
+                documentService.discardContent(docs.stream().map(Document::getContentHash).toList());
+            }
+        }
+        Iterator<Document> stored = docs.iterator();
+        for(int i = 0; i < results.size(); i++){
+            if(results.get(i) != null) continue;
+            Document doc = stored.next();
+            results.set(i, saved
+                    ? BatchItemResult.ok(doc.getFilename(), doc.getId(), doc.getStatus())
+                    : BatchItemResult.failed(doc.getFilename(), null, "Lưu document thất bại"));
+        }
+        return ResponseEntity.ok(Map.of("items", results, "unresolvedEmails", unresolved));
+    }
+
+    /** Xóa nhiều document: đánh dấu tombstone bằng một câu lệnh, file được dọn nền theo lô. */
+    @PostMapping("/delete")
+    public ResponseEntity<?> delete(@Valid @RequestBody BatchRequest request) {
+        if(request.getIds().size() > maxItems)
+            return ResponseEntity.badRequest().body("Tối đa " + maxItems + " document mỗi lần");
+        Authentication auth = getAuthentication();
+
+        Map<Long, BatchItemResult> results = new LinkedHashMap<>();
+        List<Long> allowed = new ArrayList<>();
+        for(Long id : request.getIds()){
+            AclEntry acl = documentAcl.find(id);
+            if(acl == null) results.put(id, BatchItemResult.failed(String.valueOf(id), id, "Không tìm thấy"));
+            else if(!documentAcl.canModify(acl, auth))
+                results.put(id, BatchItemResult.failed(String.valueOf(id), id, "Không có quyền"));
+            else allowed.add(id);
+        }
+
+        Set<Long> deleted = new HashSet<>(documentService.markDeleted(allowed));
+        documentAcl.evictAll(allowed);
+        for(Long id : allowed){
+            String item = String.valueOf(id);
+            results.put(id, deleted.contains(id)
+                    ? BatchItemResult.ok(item, id, "DELETED")
+                    : BatchItemResult.failed(item, id, "Không tìm thấy"));
+        }
+        return ResponseEntity.ok(Map.of("items", results.values()));
+    }
+
+    /**
+     * Tải nhiều document trong một file ZIP. Mỗi file được đọc stream từ MinIO và nén thẳng vào response,
+     * không có file tạm và không giữ cả file trên heap. Mục lỗi được liệt kê trong {@code _errors.txt}.
+     */
+    @PostMapping("/download")
+    public ResponseEntity<?> download(@Valid @RequestBody BatchRequest request) {
+        if(request.getIds().size() > maxItems)
+            return ResponseEntity.badRequest().body("Tối đa " + maxItems + " document mỗi lần");
+        Authentication auth = getAuthentication();
+
+        // kiểm tra quyền trong thread của request, trước khi bắt đầu ghi response
+        List<DocumentFile> files = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        for(Long id : request.getIds()){
+            AclEntry acl = documentAcl.find(id);
+            if(acl != null && !documentAcl.canRead(acl, auth)){ errors.add(id + ": Không có quyền"); continue; }
+            Optional<DocumentFile> file = acl == null ? Optional.empty() : docRepo.findFileById(id);
+            if(file.isPresent()) files.add(file.get());
+            else errors.add(id + ": Không tìm thấy");
+        }
+        if(files.isEmpty()) return ResponseEntity.status(404).body(errors);
+
+        StreamingResponseBody body = out -> {
+            try(ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8)){
+                // PDF/DOCX vốn đã nén, nén thêm chỉ tốn CPU
+                zip.setLevel(Deflater.BEST_SPEED);
+                Set<String> names = new HashSet<>();
+                for(DocumentFile file : files){
+                    zip.putNextEntry(new ZipEntry(uniqueName(file.getFilename(), names)));
+                    try(InputStream is = minioService.getFileStream(file.getObjectName())){
+                        documentMetrics.downloaded("zip", is.transferTo(zip));
+                    } catch(Exception e){
+                        // entry đã mở nên phần đã ghi vẫn nằm trong ZIP; báo lỗi để client biết file không đủ
+                        log.warn("Zip download: document {} failed", file.getId(), e);
+                        errors.add(file.getId() + ": Lấy file thất bại");
+                    }
+                    zip.closeEntry();
+                }
+                if(!errors.isEmpty()){
+                    zip.putNextEntry(new ZipEntry("_errors.txt"));
+                    zip.write(String.join("\n", errors).getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("documents.zip").build().toString())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    /** Tên file trùng trong ZIP được đánh số: "a.pdf", "a (2).pdf"... */
+    static String uniqueName(String filename, Set<String> used) {
+        String name = filename == null || filename.isBlank() ? "document" : filename.replace('\\', '_').replace('/', '_');
+        if(used.add(name)) return name;
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        for(int i = 2; ; i++){
+            String candidate = base + " (" + i + ")" + ext;
+            if(used.add(candidate)) return candidate;
+        }
+    }
+}
@@ -1,23 +1,53 @@
 package com.doc_manager.controller;
 
+import com.doc_manager.cache.BlobCache;
 import com.doc_manager.model.Document;
-import com.doc_manager.entity.User;
 import com.doc_manager.request.DocumentRequest;
+import com.doc_manager.request.GrantRequest;
+import com.doc_manager.request.ShareRequest;
+import com.doc_manager.request.UploadInitRequest;
+import com.doc_manager.repository.DocumentCursor;
 import com.doc_manager.repository.DocumentRepository;
-import com.doc_manager.repository.UserRepository;
+import com.doc_manager.response.DocumentPage;
+import com.doc_manager.response.DocumentSummary;
+import com.doc_manager.response.GrantResult;
+import com.doc_manager.security.AclEntry;
+import com.doc_manager.security.DocumentAcl;
+import com.doc_manager.service.DocumentMetrics;
+import com.doc_manager.service.DocumentService;
 import com.doc_manager.service.MinioService;
-import com.doc_manager.service.ScanService;
+import com.doc_manager.service.RenditionFailedException;
+import com.doc_manager.service.RenditionService;
+import com.doc_manager.service.SearchIndexService;
+import io.micrometer.core.instrument.Timer;
+import io.minio.StatObjectResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import jakarta.validation.Valid;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.TimeoutException;
 
+@Slf4j
 @RestController
 @RequestMapping("/api/documents")
 @RequiredArgsConstructor
@@ -25,19 +55,25 @@ public class DocumentController {
 
     private final MinioService minioService;
     private final DocumentRepository docRepo;
-    private final UserRepository userRepo;
-    private final ScanService scanService;
+    private final DocumentService documentService;
+    private final DocumentAcl documentAcl;
+    private final SearchIndexService searchIndex;
+    private final BlobCache blobCache;
+    private final DocumentMetrics documentMetrics;
+    private final RenditionService renditionService;
 
     @Value("${app.upload.max-size-bytes}") private long maxSize;
+    @Value("${app.upload.presign-expire-minutes}") private int presignExpireMinutes;
+    @Value("${app.documents.max-page-size}") private int maxPageSize;
+    @Value("${app.rendition.max-age-seconds}") private long renditionMaxAge;
 
     private String getCurrentUsername() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         return auth.getName();
     }
 
-    private boolean isAdmin() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    private Authentication getAuthentication() {
+        return SecurityContextHolder.getContext().getAuthentication();
     }
 
     @PostMapping("/upload")
@@ -49,113 +85,387 @@ public class DocumentController {
             return ResponseEntity.status(413).body("File quá lớn");
 
         String name = request.getFile().getOriginalFilename();
-        if(!name.toLowerCase().endsWith(".pdf") && !name.toLowerCase().endsWith(".docx"))
+        if(!DocumentService.isSupportedFile(name))
             return ResponseEntity.badRequest().body("Chỉ PDF hoặc DOCX");
 
-        String objectName = UUID.randomUUID()+"-"+name;
-        try(InputStream is = request.getFile().getInputStream()){
-            minioService.putFile(objectName,is,request.getFile().getSize(),request.getFile().getContentType());
-        }
+        Timer.Sample sample = documentMetrics.start();
+        Document doc;
+        String storedHash = null;
+        try {
+            // file multipart đã nằm trên đĩa tạm: hash trước để nội dung trùng không phải upload lại lên MinIO
+            String contentHash;
+            try(InputStream is = request.getFile().getInputStream()){
+                contentHash = DocumentService.sha256(is);
+            }
+            String objectName = documentService.storeContent(contentHash, name, request.getFile().getSize(),
+                    request.getFile().getContentType(), request.getFile());
+            storedHash = contentHash;
 
-        Set<User> allowedUsers = new HashSet<>();
-        if(request.getAllowedUserEmails()!=null){
-            for(String email : request.getAllowedUserEmails()){
-                userRepo.findByEmail(email).ifPresent(allowedUsers::add);
+            doc = Document.builder()
+                    .objectName(objectName)
+                    .contentHash(contentHash)
+                    .filename(name)
+                    .title(request.getTitle())
+                    .description(request.getDescription())
+                    .size(request.getFile().getSize())
+                    .uploadedBy(username)
+                    .uploadedAt(java.time.Instant.now())
+                    .status("UPLOADED")
+                    .build();
+
+            documentService.register(doc);
+        } catch(Exception e){
+            documentMetrics.uploaded(sample, "multipart", name, request.getFile().getSize(), false);
+            // đã lấy tham chiếu tới blob mà không ghi được document: trả lại để blob còn được dọn
+            if(storedHash != null){
+                try { documentService.discardContent(List.of(storedHash)); }
+                catch(RuntimeException discard){ log.error("Upload of {}: releasing content {} failed", name, storedHash, discard); }
             }
+            throw e;
         }
+        documentMetrics.uploaded(sample, "multipart", name, request.getFile().getSize(), true);
+        GrantResult grants = documentService.grant(doc.getId(), request.getAllowedUserEmails());
+
+        return ResponseEntity.ok(Map.of("message","Uploaded","documentId",doc.getId(),"status",doc.getStatus(),
+                "unresolvedEmails",grants.unresolved()));
+    }
+
+    /**
+     * Bước 1 của upload trực tiếp: tạo document ở trạng thái PENDING_UPLOAD và trả về
+     * POST policy để client gửi file thẳng lên MinIO, không đi qua app.
+     */
+    @PostMapping("/upload/presign")
+    public ResponseEntity<?> presignUpload(@Valid @RequestBody UploadInitRequest request) throws Exception {
+        String username = getCurrentUsername();
+        if(request.getSize() > maxSize)
+            return ResponseEntity.status(413).body("File quá lớn");
+        if(!DocumentService.isSupportedFile(request.getFilename()))
+            return ResponseEntity.badRequest().body("Chỉ PDF hoặc DOCX");
 
-        Document doc = Document.builder()
-                .objectName(objectName)
-                .filename(name)
-                .title(request.getTitle())
-                .description(request.getDescription())
-                .size(request.getFile().getSize())
-                .uploadedBy(username)
-                .uploadedAt(java.time.Instant.now())
-                .status("UPLOADED")
-                .allowedUsers(allowedUsers)
-                .build();
+        String objectName = DocumentService.newObjectName(request.getFilename());
+        Map<String, String> fields = new HashMap<>(minioService.getPresignedPostFormData(
+                objectName, request.getContentType(), maxSize, presignExpireMinutes));
+        fields.put("key", objectName);
+        fields.put("Content-Type", request.getContentType());
 
-        docRepo.save(doc);
-        scanService.scanDocumentAsync(doc.getId());
+        Document doc = documentService.createPending(request, objectName, username);
 
-        return ResponseEntity.ok(Map.of("message","Uploaded","documentId",doc.getId()));
+        return ResponseEntity.ok(Map.of(
+                "documentId", doc.getId(),
+                "url", minioService.getBucketUrl(),
+                "fields", fields,
+                "expiresInMinutes", presignExpireMinutes));
     }
 
+    /**
+     * Bước 2: client báo đã upload xong. Kiểm tra object thật sự tồn tại trên MinIO
+     * và đúng giới hạn kích thước rồi mới chuyển document sang UPLOADED và scan.
+     */
+    @PostMapping("/upload/{id}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable Long id) {
+        String username = getCurrentUsername();
+        return docRepo.findById(id).map(doc -> {
+            if(!doc.getUploadedBy().equals(username))
+                return ResponseEntity.status(403).body("Không có quyền");
+            if(!"PENDING_UPLOAD".equals(doc.getStatus()))
+                return ResponseEntity.status(409).body("Document không ở trạng thái chờ upload");
+
+            StatObjectResponse stat;
+            try { stat = minioService.statFile(doc.getObjectName()); }
+            catch(Exception e){
+                if(MinioService.isNotFound(e)) return ResponseEntity.badRequest().body("Chưa nhận được file");
+                // MinIO lỗi/không truy cập được: không phải lỗi của client, document giữ PENDING_UPLOAD để gọi lại
+                log.error("Checking upload of document {} failed", id, e);
+                return ResponseEntity.status(500).body("Kiểm tra file thất bại");
+            }
+
+            // document không dùng được nữa: tombstone luôn, object vào hàng đợi xóa
+            if(stat.size() <= 0){
+                documentService.discardPending(doc, "REJECTED");
+                return ResponseEntity.badRequest().body("File trống");
+            }
+            if(stat.size() > maxSize){
+                documentService.discardPending(doc, "REJECTED");
+                return ResponseEntity.status(413).body("File quá lớn");
+            }
+
+            // request complete đồng thời: chỉ một cái chuyển được PENDING_UPLOAD -> UPLOADED và đăng ký scan
+            return documentService.completePending(doc.getId(), stat.size())
+                    .<ResponseEntity<?>>map(registered -> {
+                        documentMetrics.uploaded(null, "direct", registered.getFilename(), stat.size(), true);
+                        return ResponseEntity.ok(Map.of("message","Uploaded","documentId",registered.getId(),"status",registered.getStatus()));
+                    })
+                    .orElse(ResponseEntity.status(409).body("Document không ở trạng thái chờ upload"));
+        }).orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Danh sách document của user (upload hoặc được chia sẻ), mới nhất trước, phân trang bằng cursor.
+     * Truyền {@code nextCursor} của trang trước vào {@code cursor} để lấy trang tiếp theo.
+     */
     @GetMapping
-    public List<Document> list() {
+    public ResponseEntity<?> list(@RequestParam(required = false) String cursor,
+                                  @RequestParam(defaultValue = "50") int limit,
+                                  @RequestParam(required = false) String status,
+                                  @RequestParam(required = false) String title) {
         String username = getCurrentUsername();
-        return docRepo.findByUploadedByOrAllowedUsersUsername(username, username);
+        DocumentCursor after = null;
+        if(cursor != null && !cursor.isBlank()){
+            try { after = DocumentCursor.decode(cursor); }
+            catch(IllegalArgumentException e){ return ResponseEntity.badRequest().body("Cursor không hợp lệ"); }
+        }
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+
+        // lấy dư một dòng để biết còn trang sau hay không
+        List<DocumentSummary> rows = docRepo.findVisible(username, after,
+                status == null || status.isBlank() ? null : status,
+                title == null || title.isBlank() ? null : title,
+                pageSize + 1);
+        String nextCursor = null;
+        if(rows.size() > pageSize){
+            rows = rows.subList(0, pageSize);
+            DocumentSummary last = rows.get(pageSize - 1);
+            nextCursor = new DocumentCursor(last.uploadedAt(), last.id()).encode();
+        }
+        return ResponseEntity.ok(new DocumentPage(rows, nextCursor));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> get(@PathVariable Long id){
-        String username = getCurrentUsername();
-        return docRepo.findById(id).map(doc -> {
-            if(doc.getUploadedBy().equals(username)
-                    || doc.getAllowedUsers().stream().anyMatch(u -> u.getUsername().equals(username))
-                    || isAdmin())
-                return ResponseEntity.ok(doc);
-            else
-                return ResponseEntity.status(403).body("Không có quyền");
-        }).orElse(ResponseEntity.notFound().build());
+        AclEntry acl = documentAcl.find(id);
+        if(acl == null) return ResponseEntity.notFound().build();
+        if(!documentAcl.canRead(acl, getAuthentication()))
+            return ResponseEntity.status(403).body("Không có quyền");
+        return docRepo.findDetailById(id).<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<?> update(@PathVariable Long id, @RequestBody DocumentRequest request){
-        String username = getCurrentUsername();
+        AclEntry acl = documentAcl.find(id);
+        if(acl == null) return ResponseEntity.notFound().build();
+        if(!documentAcl.canModify(acl, getAuthentication()))
+            return ResponseEntity.status(403).body("Không có quyền");
         return docRepo.findById(id).map(doc -> {
-            if(!doc.getUploadedBy().equals(username) && !isAdmin())
-                return ResponseEntity.status(403).body("Không có quyền");
             doc.setTitle(request.getTitle());
             doc.setDescription(request.getDescription());
-
-            Set<User> allowedUsers = new HashSet<>();
-            if(request.getAllowedUserEmails()!=null){
-                for(String email : request.getAllowedUserEmails()){
-                    userRepo.findByEmail(email).ifPresent(allowedUsers::add);
-                }
-            }
-            doc.setAllowedUsers(allowedUsers);
-
             docRepo.save(doc);
-            return ResponseEntity.ok(doc);
+            searchIndex.updateTitle(id, doc.getTitle());
+
+            // chỉ ghi phần chênh lệch của document_user, không thay cả collection
+            GrantResult grants = documentService.replaceGrants(id, request.getAllowedUserEmails());
+            return ResponseEntity.ok(Map.of("message","Updated","documentId",id,
+                    "grantsChanged",grants.changed(),"unresolvedEmails",grants.unresolved()));
         }).orElse(ResponseEntity.notFound().build());
     }
 
+    @PostMapping("/{id}/grants")
+    public ResponseEntity<?> addGrants(@PathVariable Long id, @Valid @RequestBody GrantRequest request){
+        ResponseEntity<?> denied = checkModify(id);
+        if(denied != null) return denied;
+        return ResponseEntity.ok(documentService.grant(id, request.getEmails()));
+    }
+
+    @DeleteMapping("/{id}/grants")
+    public ResponseEntity<?> removeGrants(@PathVariable Long id, @Valid @RequestBody GrantRequest request){
+        ResponseEntity<?> denied = checkModify(id);
+        if(denied != null) return denied;
+        return ResponseEntity.ok(documentService.revoke(id, request.getEmails()));
+    }
+
+    @PostMapping("/{id}/grants/roles")
+    public ResponseEntity<?> addRoleGrants(@PathVariable Long id, @Valid @RequestBody ShareRequest request){
+        ResponseEntity<?> denied = checkModify(id);
+        if(denied != null) return denied;
+        return ResponseEntity.ok(documentService.grantRoles(id, request.getNames()));
+    }
+
+    @DeleteMapping("/{id}/grants/roles")
+    public ResponseEntity<?> removeRoleGrants(@PathVariable Long id, @Valid @RequestBody ShareRequest request){
+        ResponseEntity<?> denied = checkModify(id);
+        if(denied != null) return denied;
+        return ResponseEntity.ok(documentService.revokeRoles(id, request.getNames()));
+    }
+
+    @PostMapping("/{id}/grants/groups")
+    public ResponseEntity<?> addGroupGrants(@PathVariable Long id, @Valid @RequestBody ShareRequest request){
+        ResponseEntity<?> denied = checkModify(id);
+        if(denied != null) return denied;
+        return ResponseEntity.ok(documentService.grantGroups(id, request.getNames()));
+    }
+
+    @DeleteMapping("/{id}/grants/groups")
+    public ResponseEntity<?> removeGroupGrants(@PathVariable Long id, @Valid @RequestBody ShareRequest request){
+        ResponseEntity<?> denied = checkModify(id);
+        if(denied != null) return denied;
+        return ResponseEntity.ok(documentService.revokeGroups(id, request.getNames()));
+    }
+
+    /** 404/403 nếu user hiện tại không được sửa document, null nếu được. */
+    private ResponseEntity<?> checkModify(Long id) {
+        AclEntry acl = documentAcl.find(id);
+        if(acl == null) return ResponseEntity.notFound().build();
+        if(!documentAcl.canModify(acl, getAuthentication()))
+            return ResponseEntity.status(403).body("Không có quyền");
+        return null;
+    }
+
+    /** Chỉ đánh dấu xóa, không chờ MinIO; file được dọn nền bởi StorageCollector. */
     @DeleteMapping("/{id}")
     public ResponseEntity<?> delete(@PathVariable Long id){
-        String username = getCurrentUsername();
-        return docRepo.findById(id).map(doc -> {
-            if(!doc.getUploadedBy().equals(username) && !isAdmin())
-                return ResponseEntity.status(403).body("Không có quyền");
-            try { minioService.removeFile(doc.getObjectName()); }
-            catch(Exception e){ return ResponseEntity.status(500).body("Xóa file thất bại"); }
-            docRepo.delete(doc);
-            return ResponseEntity.ok(Map.of("message","Deleted"));
-        }).orElse(ResponseEntity.notFound().build());
+        ResponseEntity<?> denied = checkModify(id);
+        if(denied != null) return denied;
+        List<Long> deleted = documentService.markDeleted(List.of(id));
+        documentAcl.evict(id);
+        if(deleted.isEmpty()) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(Map.of("message","Deleted"));
     }
 
     @GetMapping("/download/{id}")
-    public ResponseEntity<?> download(@PathVariable Long id) {
-        String username = getCurrentUsername();
+    public ResponseEntity<?> download(@PathVariable Long id,
+                                      @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+                                      @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+                                      ServletWebRequest webRequest) {
+        AclEntry acl = documentAcl.find(id);
+        if (acl == null) return ResponseEntity.notFound().build();
+        if (!documentAcl.canRead(acl, getAuthentication()))
+            return ResponseEntity.status(403).body("Không có quyền");
 
-        return docRepo.findById(id).map(doc -> {
-            boolean allowed = doc.getUploadedBy().equals(username)
-                    || doc.getAllowedUsers().stream().anyMatch(u -> u.getUsername().equals(username))
-                    || isAdmin();
+        return docRepo.findFileById(id).map(doc -> {
+            try {
+                StatObjectResponse stat = minioService.statFile(doc.getObjectName());
+                String etag = "\"" + stat.etag() + "\"";
+                long lastModified = stat.lastModified().toInstant().toEpochMilli();
+                long length = stat.size();
 
-            if (!allowed) return ResponseEntity.status(403).body("Không có quyền");
+                // 304 / 412 theo If-None-Match, If-Modified-Since, If-Match...
+                if (webRequest.checkNotModified(etag, lastModified))
+                    return ResponseEntity.status(webRequest.getResponse().getStatus()).build();
 
-            try (InputStream is = minioService.getFileStream(doc.getObjectName())) {
-                byte[] bytes = is.readAllBytes();
-                return ResponseEntity.ok()
-                        .header("Content-Disposition", "attachment; filename=\"" + doc.getFilename() + "\"")
-                        .header("Content-Type", "application/octet-stream")
-                        .body(bytes);
+                ResponseEntity.BodyBuilder builder;
+                long start, count;
+                HttpRange httpRange = resolveRange(range, ifRange, etag, lastModified);
+                if (httpRange == null) {
+                    start = 0;
+                    count = length;
+                    builder = ResponseEntity.ok();
+                } else {
+                    long end;
+                    try {
+                        start = httpRange.getRangeStart(length);
+                        end = httpRange.getRangeEnd(length);
+                        // HttpRange không kiểm tra byte đầu nằm trong file ("bytes=100-" với file 100 byte)
+                        if (start >= length || end < start)
+                            throw new IllegalArgumentException("Range starts past the end of the file");
+                    } catch (IllegalArgumentException e) {
+                        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                                .build();
+                    }
+                    count = end - start + 1;
+                    builder = ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+
+                // file hay được tải nằm trong blob cache trên đĩa local; còn lại đọc stream từ MinIO,
+                // InputStreamResource được ghi ra response theo từng buffer nhỏ, không giữ cả file trên heap
+                Object body = blobCache.open(doc.getObjectName(), stat.etag(), length, start, count);
+                if (body == null) {
+                    InputStream is = httpRange == null
+                            ? minioService.getFileStream(doc.getObjectName())
+                            : minioService.getFileStream(doc.getObjectName(), start, count);
+                    body = new InputStreamResource(is);
+                    documentMetrics.downloaded("minio", count);
+                } else {
+                    documentMetrics.downloaded("cache", count);
+                }
+
+                return builder
+                        .contentLength(count)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                .filename(doc.getFilename(), StandardCharsets.UTF_8).build().toString())
+                        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .eTag(etag)
+                        .lastModified(lastModified)
+                        .body(body);
             } catch (Exception e) {
+                log.error("Download of document {} failed", id, e);
                 return ResponseEntity.status(500).body("Lấy file thất bại");
             }
         }).orElse(ResponseEntity.notFound().build());
     }
+
+    /** Ảnh PNG trang đầu, để client nhận ra document mà không phải tải cả file. */
+    @GetMapping("/thumbnail/{id}")
+    public ResponseEntity<?> thumbnail(@PathVariable Long id, ServletWebRequest webRequest) {
+        return rendition(id, RenditionService.Kind.THUMBNAIL, webRequest);
+    }
+
+    /** Bản xem trước nhẹ: PDF gồm vài trang đầu, DOCX là đoạn văn bản đầu (text/plain). */
+    @GetMapping("/preview/{id}")
+    public ResponseEntity<?> preview(@PathVariable Long id, ServletWebRequest webRequest) {
+        return rendition(id, RenditionService.Kind.PREVIEW, webRequest);
+    }
+
+    private ResponseEntity<?> rendition(Long id, RenditionService.Kind kind, ServletWebRequest webRequest) {
+        AclEntry acl = documentAcl.find(id);
+        if(acl == null) return ResponseEntity.notFound().build();
+        if(!documentAcl.canRead(acl, getAuthentication()))
+            return ResponseEntity.status(403).body("Không có quyền");
+
+        return docRepo.findFileById(id).<ResponseEntity<?>>map(doc -> {
+            if(!RenditionService.isSupported(doc.getFilename()))
+                return ResponseEntity.status(415).body("Loại file không hỗ trợ xem trước");
+            try {
+                RenditionService.Rendition rendition = renditionService.get(doc.getObjectName(), doc.getFilename(), kind);
+                String etag = "\"" + rendition.etag() + "\"";
+                if(webRequest.checkNotModified(etag))
+                    return ResponseEntity.status(webRequest.getResponse().getStatus()).build();
+
+                // rendition không đổi theo nội dung gốc; private vì quyền xem có thể bị thu hồi
+                Object body = rendition.data() != null
+                        ? rendition.data()
+                        : new InputStreamResource(minioService.getFileStream(rendition.objectName()));
+                documentMetrics.downloaded("rendition", rendition.size());
+                return ResponseEntity.ok()
+                        .contentLength(rendition.size())
+                        .contentType(rendition.contentType())
+                        .cacheControl(CacheControl.maxAge(Duration.ofSeconds(renditionMaxAge)).cachePrivate())
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline().build().toString())
+                        .eTag(etag)
+                        .body(body);
+            } catch(RenditionFailedException e){
+                return ResponseEntity.status(422).body("Không tạo được bản xem trước: " + e.getMessage());
+            } catch(TimeoutException e){
+                return ResponseEntity.status(503).body("Đang bận tạo bản xem trước, thử lại sau");
+            } catch(Exception e){
+                log.error("Rendition {} of document {} failed", kind, id, e);
+                return ResponseEntity.status(500).body("Tạo bản xem trước thất bại");
+            }
+        }).orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Trả về range cần phục vụ, hoặc null nếu phải trả cả file: không có header Range,
+     * If-Range không khớp phiên bản hiện tại, header sai cú pháp hoặc yêu cầu nhiều range.
+     */
+    private HttpRange resolveRange(String range, String ifRange, String etag, long lastModified) {
+        if (range == null) return null;
+        if (ifRange != null && !ifRange.equals(etag)) {
+            try {
+                long ifRangeDate = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli();
+                if (ifRangeDate / 1000 != lastModified / 1000) return null;
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.doc_manager.controller;
+
+import com.doc_manager.entity.UserGroup;
+import com.doc_manager.repository.UserGroupRepository;
+import com.doc_manager.request.GrantRequest;
+import com.doc_manager.request.GroupRequest;
+import com.doc_manager.service.GroupService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Quản lý nhóm người dùng để chia sẻ document theo nhóm (chỉ admin, theo cấu hình /api/admin/**).
+ */
+@RestController
+@RequestMapping("/api/admin/groups")
+@RequiredArgsConstructor
+public class GroupController {
+
+    private final GroupService groupService;
+    private final UserGroupRepository groupRepo;
+
+    @GetMapping
+    public List<UserGroup> list() {
+        return groupRepo.findAll();
+    }
+
+    @PostMapping
+    public ResponseEntity<?> create(@Valid @RequestBody GroupRequest request) {
+        if(groupRepo.findByName(request.getName().trim()).isPresent())
+            return ResponseEntity.status(409).body("Nhóm đã tồn tại");
+        return ResponseEntity.ok(groupService.create(request.getName()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(@PathVariable UUID id) {
+        return groupRepo.findById(id).map(group -> {
+            groupService.delete(group);
+            return ResponseEntity.ok(Map.of("message","Deleted"));
+        }).orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/members")
+    public ResponseEntity<?> addMembers(@PathVariable UUID id, @Valid @RequestBody GrantRequest request) {
+        return groupRepo.findById(id)
+                .<ResponseEntity<?>>map(group -> ResponseEntity.ok(groupService.addMembers(group, request.getEmails())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}/members")
+    public ResponseEntity<?> removeMembers(@PathVariable UUID id, @Valid @RequestBody GrantRequest request) {
+        return groupRepo.findById(id)
+                .<ResponseEntity<?>>map(group -> ResponseEntity.ok(groupService.removeMembers(group, request.getEmails())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,132 @@
+package com.doc_manager.controller;
+
+import com.doc_manager.model.UploadPart;
+import com.doc_manager.model.UploadSession;
+import com.doc_manager.repository.UploadSessionRepository;
+import com.doc_manager.request.UploadInitRequest;
+import com.doc_manager.service.DocumentService;
+import com.doc_manager.service.MultipartUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Upload nhiều phần: init -> PUT từng phần (song song, gửi lại được) -> complete hoặc abort.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/documents/uploads")
+@RequiredArgsConstructor
+public class MultipartUploadController {
+
+    private final MultipartUploadService uploadService;
+    private final UploadSessionRepository sessionRepo;
+
+    @Value("${app.upload.max-size-bytes}") private long maxSize;
+
+    private String getCurrentUsername() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
+    @PostMapping
+    public ResponseEntity<?> init(@Valid @RequestBody UploadInitRequest request) {
+        if(request.getSize() > maxSize)
+            return ResponseEntity.status(413).body("File quá lớn");
+        if(!DocumentService.isSupportedFile(request.getFilename()))
+            return ResponseEntity.badRequest().body("Chỉ PDF hoặc DOCX");
+
+        UploadSession session = uploadService.init(request, getCurrentUsername());
+        return ResponseEntity.ok(Map.of(
+                "uploadId", session.getId(),
+                "documentId", session.getDocumentId(),
+                "partSize", session.getPartSize(),
+                "partCount", session.getPartCount()));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> status(@PathVariable String uploadId) {
+        return findOwnSession(uploadId).map(session -> {
+            List<Integer> uploaded = uploadService.listParts(uploadId).stream()
+                    .map(UploadPart::getPartNumber)
+                    .toList();
+            return ResponseEntity.ok(Map.of(
+                    "uploadId", session.getId(),
+                    "status", session.getStatus(),
+                    "partSize", session.getPartSize(),
+                    "partCount", session.getPartCount(),
+                    "uploadedParts", uploaded));
+        }).orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Body của request là dữ liệu thô của phần, Content-Length phải đúng kích thước phần.
+     */
+    @PutMapping("/{uploadId}/parts/{partNumber}")
+    public ResponseEntity<?> uploadPart(@PathVariable String uploadId, @PathVariable int partNumber,
+                                        HttpServletRequest httpRequest) {
+        return findOwnSession(uploadId).map(session -> {
+            if(!"IN_PROGRESS".equals(session.getStatus()))
+                return ResponseEntity.status(409).body("Phiên upload đã kết thúc");
+            if(partNumber < 1 || partNumber > session.getPartCount())
+                return ResponseEntity.badRequest().body("Số thứ tự phần không hợp lệ");
+
+            long expected = uploadService.expectedPartSize(session, partNumber);
+            if(httpRequest.getContentLengthLong() != expected)
+                return ResponseEntity.badRequest().body("Kích thước phần phải là " + expected + " bytes");
+
+            try(InputStream is = httpRequest.getInputStream()){
+                UploadPart part = uploadService.uploadPart(session, partNumber, is, expected);
+                return ResponseEntity.ok(Map.of("partNumber", part.getPartNumber(), "etag", part.getEtag()));
+            } catch(Exception e){
+                return ResponseEntity.status(500).body("Upload phần thất bại");
+            }
+        }).orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<?> complete(@PathVariable String uploadId) {
+        return findOwnSession(uploadId).map(session -> {
+            if("ABORTED".equals(session.getStatus()))
+                return ResponseEntity.status(409).body("Phiên upload đã kết thúc");
+            // gọi lại complete cho phiên đã COMPLETED trả về cùng kết quả
+            if("IN_PROGRESS".equals(session.getStatus())){
+                List<Integer> missing = uploadService.missingParts(session);
+                if(!missing.isEmpty())
+                    return ResponseEntity.badRequest().body(Map.of("message", "Thiếu phần", "missingParts", missing));
+            }
+            try {
+                return uploadService.complete(session)
+                        .<ResponseEntity<?>>map(doc -> ResponseEntity.ok(Map.of("message","Uploaded","documentId",doc.getId(),"status",doc.getStatus())))
+                        .orElse(ResponseEntity.status(409).body("Phiên upload đã kết thúc"));
+            } catch(Exception e){
+                log.error("Completing upload {} failed", uploadId, e);
+                return ResponseEntity.status(500).body("Ghép file thất bại");
+            }
+        }).orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> abort(@PathVariable String uploadId) {
+        return findOwnSession(uploadId).map(session -> {
+            if(!uploadService.abort(session))
+                return ResponseEntity.status(409).body("Phiên upload đã kết thúc");
+            return ResponseEntity.ok(Map.of("message","Aborted"));
+        }).orElse(ResponseEntity.notFound().build());
+    }
+
+    /** Phiên của user khác được coi như không tồn tại. */
+    private Optional<UploadSession> findOwnSession(String uploadId) {
+        String username = getCurrentUsername();
+        return sessionRepo.findById(uploadId).filter(s -> s.getUploadedBy().equals(username));
+    }
+}
@@ -0,0 +1,37 @@
+package com.doc_manager.controller;
+
+import com.doc_manager.service.SearchIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Tìm kiếm trong nội dung document, chỉ trả về document user được xem, xếp theo độ liên quan.
+ */
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchIndexService searchIndex;
+
+    @Value("${app.documents.max-page-size}") private int maxPageSize;
+    @Value("${app.search.max-page}") private int maxPage;
+
+    @GetMapping
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "20") int size) {
+        if(q.isBlank()) return ResponseEntity.badRequest().body("Từ khóa trống");
+        // OFFSET sâu phải xếp hạng và bỏ qua mọi dòng phía trước; người dùng nên thu hẹp từ khóa thay vì lật trang
+        if(page > maxPage) return ResponseEntity.badRequest().body("Trang tối đa là " + maxPage);
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        return ResponseEntity.ok(searchIndex.search(username, q, Math.max(0, page), pageSize));
+    }
+}
@@ -0,0 +1,15 @@
+package com.doc_manager.detector;
+
+/**
+ * Luật được gọi tại mỗi vị trí của một ký tự neo ASCII (ví dụ '@' cho email).
+ */
+public interface AnchorRule extends DetectorRule {
+
+    char anchor();
+
+    /**
+     * @param minStart match không được bắt đầu trước vị trí này (kết thúc của match trước đó
+     *                 cùng luật), giống ngữ nghĩa không chồng lấn của {@code Matcher.find()}.
+     */
+    Match match(CharSequence text, int anchorIndex, int minStart);
+}
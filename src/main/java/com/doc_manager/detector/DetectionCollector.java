@@ -0,0 +1,58 @@
+package com.doc_manager.detector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gom và khử trùng lặp các match. Số giá trị khác nhau được giữ lại bị giới hạn,
+ * còn bộ đếm theo loại luôn chính xác.
+ */
+public class DetectionCollector {
+
+    private static final class Entry {
+        final String type;
+        final String value;
+        final long firstOffset;
+        int occurrences;
+
+        Entry(String type, String value, long firstOffset) {
+            this.type = type;
+            this.value = value;
+            this.firstOffset = firstOffset;
+        }
+    }
+
+    private final int maxFindings;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final Map<String, Integer> counts = new LinkedHashMap<>();
+    private boolean truncated;
+
+    public DetectionCollector(int maxFindings) {
+        this.maxFindings = maxFindings;
+    }
+
+    public void add(String type, String value, long offset) {
+        counts.merge(type, 1, Integer::sum);
+        String key = type + ":" + value;
+        Entry entry = entries.get(key);
+        if(entry == null){
+            if(entries.size() >= maxFindings){
+                truncated = true;
+                return;
+            }
+            entry = new Entry(type, value, offset);
+            entries.put(key, entry);
+        }
+        entry.occurrences++;
+    }
+
+    public DetectionResult result() {
+        List<Finding> findings = new ArrayList<>(entries.size());
+        for(Entry e : entries.values()){
+            findings.add(new Finding(e.type, e.value, e.firstOffset, e.occurrences));
+        }
+        return new DetectionResult(Map.copyOf(counts), List.copyOf(findings), truncated);
+    }
+}
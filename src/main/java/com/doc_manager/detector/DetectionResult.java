@@ -0,0 +1,21 @@
+package com.doc_manager.detector;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @param counts    tổng số lần xuất hiện theo loại PII (kể cả khi danh sách findings bị cắt)
+ * @param findings  các giá trị khác nhau theo thứ tự xuất hiện
+ * @param truncated true nếu số giá trị khác nhau vượt giới hạn và findings bị cắt
+ */
+public record DetectionResult(Map<String, Integer> counts, List<Finding> findings, boolean truncated) {
+
+    public boolean isEmpty() {
+        return counts.isEmpty();
+    }
+
+    /** Nhãn dạng "TYPE:value" như định dạng labelsJson cũ. */
+    public List<String> labels() {
+        return findings.stream().map(Finding::label).toList();
+    }
+}
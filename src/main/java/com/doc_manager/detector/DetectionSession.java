@@ -0,0 +1,62 @@
+package com.doc_manager.detector;
+
+/**
+ * Scan tăng dần cho văn bản đến theo từng mảnh (ví dụ từ SAX ContentHandler của Tika).
+ *
+ * Văn bản được gom thành đoạn khoảng {@code chunkSize} ký tự. Mỗi lần scan, match bắt đầu trong
+ * {@code overlap} ký tự cuối chưa được quyết định mà để dành cho đoạn sau, và đoạn sau giữ lại thêm
+ * {@code overlap} ký tự phía trước làm ngữ cảnh; vì mọi match ngắn hơn {@code overlap} nên match
+ * cắt ngang ranh giới đoạn không bị mất hay đếm trùng. Bộ nhớ tối đa khoảng chunkSize + 2 * overlap ký tự.
+ */
+public class DetectionSession {
+
+    private final PiiDetector detector;
+    private final int chunkSize;
+    private final int overlap;
+    private final DetectionCollector collector;
+    private final StringBuilder window;
+
+    /** Vị trí trong tài liệu của window.charAt(0). */
+    private long windowOffset;
+    /** Mọi match bắt đầu trước vị trí này (trong tài liệu) đã được quyết định. */
+    private long decidedUntil;
+    private long totalChars;
+
+    DetectionSession(PiiDetector detector, int chunkSize) {
+        this.detector = detector;
+        this.overlap = detector.maxMatchLength() + 1;
+        this.chunkSize = Math.max(chunkSize, overlap);
+        this.collector = new DetectionCollector(detector.maxFindings());
+        this.window = new StringBuilder(this.chunkSize + 2 * overlap);
+    }
+
+    public void feed(char[] ch, int start, int length) {
+        window.append(ch, start, length);
+        totalChars += length;
+        if(window.length() >= chunkSize + 2 * overlap) flush(false);
+    }
+
+    public long totalChars() {
+        return totalChars;
+    }
+
+    public DetectionResult finish() {
+        flush(true);
+        return collector.result();
+    }
+
+    private void flush(boolean last) {
+        int n = window.length();
+        int ownFrom = (int) (decidedUntil - windowOffset);
+        int ownTo = last ? n : n - overlap;
+        if(ownTo > ownFrom){
+            detector.scan(window, ownFrom, ownTo, windowOffset, collector);
+            decidedUntil = windowOffset + ownTo;
+        }
+        if(!last){
+            int keepFrom = Math.max(0, ownTo - overlap);
+            window.delete(0, keepFrom);
+            windowOffset += keepFrom;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.doc_manager.detector;
+
+/**
+ * Một luật phát hiện PII. Luật không tự duyệt toàn bộ văn bản mà được {@link PiiDetector}
+ * gọi tại các "mốc" trong một lượt duyệt duy nhất: dãy chữ số ({@link DigitRunRule}),
+ * ký tự neo như '@' ({@link AnchorRule}) hoặc từ khóa ({@link KeywordRule}).
+ */
+public interface DetectorRule {
+
+    /** Loại PII, dùng làm tiền tố nhãn, ví dụ EMAIL, CMND. */
+    String type();
+
+    /** Độ dài tối đa của một match, dùng để tính vùng chồng lấn khi scan theo từng đoạn. */
+    int maxMatchLength();
+
+    /**
+     * Mô tả đầy đủ hành vi của luật (lớp và tham số), dùng để tính phiên bản bộ luật.
+     * Luật có tham số phải đưa tham số vào đây để đổi tham số là đổi phiên bản.
+     */
+    default String signature() {
+        return getClass().getName() + ":" + type();
+    }
+
+    static boolean isWordChar(char c) {
+        // cùng định nghĩa với \b của java.util.regex khi không bật UNICODE_CHARACTER_CLASS
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+}
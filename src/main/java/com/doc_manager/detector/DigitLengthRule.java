@@ -0,0 +1,39 @@
+package com.doc_manager.detector;
+
+import java.util.Arrays;
+
+/**
+ * Dãy chữ số đứng riêng có độ dài nằm trong tập cho trước, ví dụ CMND/CCCD 9 hoặc 12 số,
+ * mã số thuế 10 số. Tương đương {@code \b\d{n}\b}.
+ */
+public class DigitLengthRule implements DigitRunRule {
+
+    private final String type;
+    private final int[] lengths;
+
+    public DigitLengthRule(String type, int... lengths) {
+        this.type = type;
+        this.lengths = lengths.clone();
+        Arrays.sort(this.lengths);
+    }
+
+    @Override
+    public String type() {
+        return type;
+    }
+
+    @Override
+    public int maxMatchLength() {
+        return lengths[lengths.length - 1];
+    }
+
+    @Override
+    public String signature() {
+        return DigitRunRule.super.signature() + ":" + Arrays.toString(lengths);
+    }
+
+    @Override
+    public String match(CharSequence text, int start, int end) {
+        return Arrays.binarySearch(lengths, end - start) >= 0 ? text.subSequence(start, end).toString() : null;
+    }
+}
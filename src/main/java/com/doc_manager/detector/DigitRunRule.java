@@ -0,0 +1,10 @@
+package com.doc_manager.detector;
+
+/**
+ * Luật áp lên mỗi dãy chữ số ASCII tối đại có biên từ ở hai đầu (tương đương {@code \b\d+\b}).
+ */
+public interface DigitRunRule extends DetectorRule {
+
+    /** @return giá trị PII hoặc null nếu dãy [start, end) không khớp. */
+    String match(CharSequence text, int start, int end);
+}
@@ -0,0 +1,62 @@
+package com.doc_manager.detector;
+
+/**
+ * Email, neo tại '@'. Cùng ngữ nghĩa với
+ * {@code [a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\.[a-zA-Z]{2,}}: phần domain lấy dấu chấm xa nhất
+ * còn theo sau bởi ít nhất 2 chữ cái. Local part và domain bị giới hạn độ dài để chi phí
+ * tại mỗi '@' là hằng số.
+ */
+public class EmailRule implements AnchorRule {
+
+    private static final int MAX_LOCAL = 256;
+    private static final int MAX_DOMAIN = 256;
+
+    @Override
+    public String type() {
+        return "EMAIL";
+    }
+
+    @Override
+    public char anchor() {
+        return '@';
+    }
+
+    @Override
+    public int maxMatchLength() {
+        return MAX_LOCAL + 1 + MAX_DOMAIN;
+    }
+
+    @Override
+    public Match match(CharSequence text, int at, int minStart) {
+        int floor = Math.max(minStart, at - MAX_LOCAL);
+        int start = at;
+        while(start > floor && isLocalChar(text.charAt(start - 1))) start--;
+        if(start == at) return null;
+
+        int limit = Math.min(text.length(), at + 1 + MAX_DOMAIN);
+        int domainEnd = at + 1;
+        while(domainEnd < limit && isDomainChar(text.charAt(domainEnd))) domainEnd++;
+
+        // phần trước dấu chấm cuối cần ít nhất một ký tự, nên dấu chấm nằm từ at + 2
+        for(int dot = domainEnd - 1; dot >= at + 2; dot--){
+            if(text.charAt(dot) != '.') continue;
+            int end = dot + 1;
+            while(end < domainEnd && isAsciiLetter(text.charAt(end))) end++;
+            if(end - dot - 1 >= 2) return new Match(start, end, text.subSequence(start, end).toString());
+        }
+        return null;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isLocalChar(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9')
+                || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isDomainChar(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '.' || c == '-';
+    }
+}
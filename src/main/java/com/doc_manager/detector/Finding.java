@@ -0,0 +1,11 @@
+package com.doc_manager.detector;
+
+/**
+ * Một giá trị PII khác nhau, kèm vị trí lần xuất hiện đầu tiên và số lần xuất hiện.
+ */
+public record Finding(String type, String value, long firstOffset, int occurrences) {
+
+    public String label() {
+        return type + ":" + value;
+    }
+}
@@ -0,0 +1,111 @@
+package com.doc_manager.detector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Automaton Aho-Corasick trên ký tự đã hạ chữ thường. Sau khi dựng, mỗi trạng thái giữ
+ * mảng ký tự chuyển tiếp đã sắp xếp nên bước chuyển không cấp phát và không boxing.
+ */
+final class KeywordAutomaton {
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] fail;
+    private final int[][] outputs;
+    private final int[] keywordLengths;
+
+    KeywordAutomaton(List<String> keywords) {
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> out = new ArrayList<>();
+        children.add(new TreeMap<>());
+        out.add(new ArrayList<>());
+
+        keywordLengths = new int[keywords.size()];
+        for(int k = 0; k < keywords.size(); k++){
+            String keyword = keywords.get(k);
+            keywordLengths[k] = keyword.length();
+            int state = 0;
+            for(int i = 0; i < keyword.length(); i++){
+                char c = Character.toLowerCase(keyword.charAt(i));
+                Integer next = children.get(state).get(c);
+                if(next == null){
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    out.add(new ArrayList<>());
+                    children.get(state).put(c, next);
+                }
+                state = next;
+            }
+            out.get(state).add(k);
+        }
+
+        int size = children.size();
+        keys = new char[size][];
+        targets = new int[size][];
+        for(int s = 0; s < size; s++){
+            TreeMap<Character, Integer> map = children.get(s);
+            keys[s] = new char[map.size()];
+            targets[s] = new int[map.size()];
+            int i = 0;
+            for(var e : map.entrySet()){
+                keys[s][i] = e.getKey();
+                targets[s][i] = e.getValue();
+                i++;
+            }
+        }
+
+        // liên kết fail theo BFS; output của trạng thái gồm cả output của trạng thái fail
+        fail = new int[size];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for(int t : targets[0]) queue.add(t);
+        while(!queue.isEmpty()){
+            int s = queue.poll();
+            for(int i = 0; i < keys[s].length; i++){
+                char c = keys[s][i];
+                int t = targets[s][i];
+                int f = fail[s];
+                int next;
+                while((next = transition(f, c)) < 0 && f != 0) f = fail[f];
+                fail[t] = (next >= 0 && next != t) ? next : 0;
+                out.get(t).addAll(out.get(fail[t]));
+                queue.add(t);
+            }
+        }
+
+        outputs = new int[size][];
+        for(int s = 0; s < size; s++){
+            outputs[s] = out.get(s).isEmpty() ? NO_OUTPUT : out.get(s).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private int transition(int state, char c) {
+        int i = Arrays.binarySearch(keys[state], c);
+        return i >= 0 ? targets[state][i] : -1;
+    }
+
+    /** @param c ký tự đã hạ chữ thường */
+    int step(int state, char c) {
+        while(true){
+            int next = transition(state, c);
+            if(next >= 0) return next;
+            if(state == 0) return 0;
+            state = fail[state];
+        }
+    }
+
+    /** Chỉ số các từ khóa kết thúc tại trạng thái này. */
+    int[] outputs(int state) {
+        return outputs[state];
+    }
+
+    int keywordLength(int keyword) {
+        return keywordLengths[keyword];
+    }
+}
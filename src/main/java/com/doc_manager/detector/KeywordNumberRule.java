@@ -0,0 +1,71 @@
+package com.doc_manager.detector;
+
+import java.util.List;
+
+/**
+ * Từ khóa theo sau bởi một dãy số, ví dụ "số tài khoản: 0123 456 789". Cùng ngữ nghĩa với
+ * {@code (?i)(kw1|kw2)[:\s]*([0-9\- ]{6,30})}, giá trị là nhóm số; phần phân cách được giới hạn độ dài.
+ */
+public class KeywordNumberRule implements KeywordRule {
+
+    private static final int MAX_SEPARATOR = 64;
+    private static final int MIN_DIGITS = 6;
+    private static final int MAX_DIGITS = 30;
+
+    private final String type;
+    private final List<String> keywords;
+
+    public KeywordNumberRule(String type, List<String> keywords) {
+        this.type = type;
+        this.keywords = List.copyOf(keywords);
+    }
+
+    @Override
+    public String type() {
+        return type;
+    }
+
+    @Override
+    public List<String> keywords() {
+        return keywords;
+    }
+
+    @Override
+    public int maxMatchLength() {
+        int longest = keywords.stream().mapToInt(String::length).max().orElse(0);
+        return longest + MAX_SEPARATOR + MAX_DIGITS;
+    }
+
+    @Override
+    public String signature() {
+        return KeywordRule.super.signature() + ":" + keywords;
+    }
+
+    @Override
+    public Match match(CharSequence text, int keywordStart, int keywordEnd) {
+        int n = text.length();
+        int separatorEnd = keywordEnd;
+        while(separatorEnd < n && separatorEnd - keywordEnd < MAX_SEPARATOR
+                && isSeparator(text.charAt(separatorEnd))) separatorEnd++;
+
+        // như regex backtrack: nếu nhóm số bắt đầu ngay sau phần phân cách quá ngắn, lùi dần
+        // điểm bắt đầu vào phần phân cách (chỉ dấu cách thuộc cả hai tập ký tự)
+        for(int valueStart = separatorEnd; valueStart >= keywordEnd; valueStart--){
+            int length = 0;
+            while(valueStart + length < n && length < MAX_DIGITS && isNumberChar(text.charAt(valueStart + length))) length++;
+            if(length >= MIN_DIGITS){
+                int valueEnd = valueStart + length;
+                return new Match(keywordStart, valueEnd, text.subSequence(valueStart, valueEnd).toString());
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ':' || c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == ' ';
+    }
+}
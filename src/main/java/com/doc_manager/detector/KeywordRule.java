@@ -0,0 +1,15 @@
+package com.doc_manager.detector;
+
+import java.util.List;
+
+/**
+ * Luật bắt đầu từ một từ khóa. Mọi từ khóa của mọi luật được gộp vào một automaton
+ * Aho-Corasick nên thêm luật không làm tăng số lượt duyệt văn bản.
+ */
+public interface KeywordRule extends DetectorRule {
+
+    /** Từ khóa, so khớp không phân biệt hoa thường. */
+    List<String> keywords();
+
+    Match match(CharSequence text, int keywordStart, int keywordEnd);
+}
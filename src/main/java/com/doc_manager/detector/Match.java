@@ -0,0 +1,7 @@
+package com.doc_manager.detector;
+
+/**
+ * Vùng [start, end) mà luật đã tiêu thụ và giá trị PII trích ra từ đó.
+ */
+public record Match(int start, int end, String value) {
+}
@@ -0,0 +1,180 @@
+package com.doc_manager.detector;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Phát hiện mọi loại PII trong một lượt duyệt tuyến tính duy nhất.
+ *
+ * Trong lượt duyệt, engine theo dõi ba loại mốc và gọi luật tương ứng: dãy chữ số tối đại có
+ * biên từ, ký tự neo ASCII (ví dụ '@'), và từ khóa (qua một automaton Aho-Corasick chung).
+ * Thêm luật mới chỉ thêm một lần gọi tại mốc của nó chứ không thêm lượt duyệt toàn văn bản.
+ */
+public class PiiDetector {
+
+    private final List<DigitRunRule> digitRules = new ArrayList<>();
+    private final List<AnchorRule> anchorRules = new ArrayList<>();
+    /** ký tự neo ASCII -> index các luật trong anchorRules */
+    private final int[][] anchorTable = new int[128][];
+    private final List<KeywordRule> keywordRules = new ArrayList<>();
+    private final KeywordAutomaton automaton;
+    /** keyword index -> index luật trong keywordRules */
+    private final int[] keywordOwner;
+    private final int maxMatchLength;
+    private final int maxFindings;
+    private final String rulesetVersion;
+
+    public PiiDetector(List<? extends DetectorRule> rules, int maxFindings) {
+        this(rules, maxFindings, "");
+    }
+
+    /**
+     * @param revision tăng khi sửa logic của một luật mà chữ ký không đổi (ví dụ sửa lỗi trong match)
+     */
+    public PiiDetector(List<? extends DetectorRule> rules, int maxFindings, String revision) {
+        this.maxFindings = maxFindings;
+        this.rulesetVersion = fingerprint(rules, revision);
+        List<String> keywords = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        int maxLen = 1;
+        for(DetectorRule rule : rules){
+            maxLen = Math.max(maxLen, rule.maxMatchLength());
+            if(rule instanceof DigitRunRule r) digitRules.add(r);
+            if(rule instanceof AnchorRule r){
+                if(r.anchor() >= 128) throw new IllegalArgumentException("Anchor must be ASCII: " + r.type());
+                int[] existing = anchorTable[r.anchor()];
+                int[] updated = existing == null ? new int[1] : Arrays.copyOf(existing, existing.length + 1);
+                updated[updated.length - 1] = anchorRules.size();
+                anchorTable[r.anchor()] = updated;
+                anchorRules.add(r);
+            }
+            if(rule instanceof KeywordRule r){
+                for(String keyword : r.keywords()){
+                    keywords.add(keyword);
+                    owners.add(keywordRules.size());
+                }
+                keywordRules.add(r);
+            }
+        }
+        this.automaton = keywords.isEmpty() ? null : new KeywordAutomaton(keywords);
+        this.keywordOwner = owners.stream().mapToInt(Integer::intValue).toArray();
+        this.maxMatchLength = maxLen;
+    }
+
+    /** Độ dài match dài nhất trong các luật; vùng chồng lấn khi scan theo đoạn phải lớn hơn giá trị này. */
+    public int maxMatchLength() {
+        return maxMatchLength;
+    }
+
+    public int maxFindings() {
+        return maxFindings;
+    }
+
+    /**
+     * Phiên bản bộ luật: băm của revision và chữ ký các luật (không phụ thuộc thứ tự bean).
+     * Document scan bằng phiên bản khác được coi là cũ và sẽ được scan lại.
+     */
+    public String rulesetVersion() {
+        return rulesetVersion;
+    }
+
+    private static String fingerprint(List<? extends DetectorRule> rules, String revision) {
+        List<String> signatures = rules.stream().map(DetectorRule::signature).sorted().toList();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(revision.getBytes(StandardCharsets.UTF_8));
+            for(String signature : signatures){
+                digest.update((byte) '\n');
+                digest.update(signature.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch(NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Phiên scan cho văn bản đến theo từng mảnh, bộ nhớ giới hạn theo {@code chunkSize}.
+     */
+    public DetectionSession newSession(int chunkSize) {
+        return new DetectionSession(this, chunkSize);
+    }
+
+    public DetectionResult detect(CharSequence text) {
+        DetectionCollector collector = new DetectionCollector(maxFindings);
+        scan(text, 0, text.length(), 0, collector);
+        return collector.result();
+    }
+
+    /**
+     * Duyệt toàn bộ {@code text} nhưng chỉ ghi nhận match bắt đầu trong [ownFrom, ownTo),
+     * để scan theo từng đoạn chồng lấn không đếm trùng.
+     *
+     * @param baseOffset vị trí của text.charAt(0) trong tài liệu, dùng cho offset của finding
+     */
+    public void scan(CharSequence text, int ownFrom, int ownTo, long baseOffset, DetectionCollector out) {
+        int n = text.length();
+        int[] anchorLastEnd = new int[anchorRules.size()];
+        int[] keywordLastEnd = new int[keywordRules.size()];
+        int state = 0;
+        int runStart = -1;
+
+        for(int i = 0; i < n; i++){
+            char c = text.charAt(i);
+
+            if(c >= '0' && c <= '9'){
+                if(runStart < 0) runStart = i;
+            } else if(runStart >= 0){
+                onDigitRun(text, runStart, i, ownFrom, ownTo, baseOffset, out);
+                runStart = -1;
+            }
+
+            if(automaton != null){
+                state = automaton.step(state, Character.toLowerCase(c));
+                for(int keyword : automaton.outputs(state)){
+                    int ruleIndex = keywordOwner[keyword];
+                    int start = i + 1 - automaton.keywordLength(keyword);
+                    if(start < keywordLastEnd[ruleIndex]) continue;
+                    KeywordRule rule = keywordRules.get(ruleIndex);
+                    Match m = rule.match(text, start, i + 1);
+                    if(m != null){
+                        keywordLastEnd[ruleIndex] = m.end();
+                        emit(rule, m, ownFrom, ownTo, baseOffset, out);
+                    }
+                }
+            }
+
+            if(c < 128 && anchorTable[c] != null){
+                for(int ruleIndex : anchorTable[c]){
+                    AnchorRule rule = anchorRules.get(ruleIndex);
+                    Match m = rule.match(text, i, anchorLastEnd[ruleIndex]);
+                    if(m != null){
+                        anchorLastEnd[ruleIndex] = m.end();
+                        emit(rule, m, ownFrom, ownTo, baseOffset, out);
+                    }
+                }
+            }
+        }
+        if(runStart >= 0) onDigitRun(text, runStart, n, ownFrom, ownTo, baseOffset, out);
+    }
+
+    private void onDigitRun(CharSequence text, int start, int end, int ownFrom, int ownTo,
+                            long baseOffset, DetectionCollector out) {
+        if(start < ownFrom || start >= ownTo || digitRules.isEmpty()) return;
+        if(start > 0 && DetectorRule.isWordChar(text.charAt(start - 1))) return;
+        if(end < text.length() && DetectorRule.isWordChar(text.charAt(end))) return;
+        for(DigitRunRule rule : digitRules){
+            String value = rule.match(text, start, end);
+            if(value != null) out.add(rule.type(), value, baseOffset + start);
+        }
+    }
+
+    private static void emit(DetectorRule rule, Match m, int ownFrom, int ownTo, long baseOffset, DetectionCollector out) {
+        if(m.start() >= ownFrom && m.start() < ownTo) out.add(rule.type(), m.value(), baseOffset + m.start());
+    }
+}
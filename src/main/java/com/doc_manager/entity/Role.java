@@ -3,7 +3,11 @@ package com.doc_manager.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 
 import java.util.HashSet;
@@ -11,6 +15,9 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roles")
+@EntityListeners(SecurityGraphListener.class)
 @Table(name = "roles")
 @Data
 @NoArgsConstructor
@@ -25,7 +32,10 @@ public class Role {
     @Column(unique = true, nullable = false)
     private String name;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "role-authorities")
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "role_authorities",
             joinColumns = @JoinColumn(name = "role_id"),
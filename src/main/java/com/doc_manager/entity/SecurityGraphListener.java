@@ -0,0 +1,34 @@
+package com.doc_manager.entity;
+
+import com.doc_manager.cache.SecurityGraphCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Báo cho {@link SecurityGraphCache} mỗi khi User/Role/Authority thay đổi qua JPA để các node khác
+ * xóa cache. Thành viên role (user_roles) được sửa qua {@link com.doc_manager.service.UserRoleService},
+ * nơi document_access cũng được tính lại. Sửa trực tiếp trong DB không đi qua đây, cần gọi endpoint
+ * evict và refresh của admin.
+ */
+public class SecurityGraphListener {
+
+    // lấy muộn: listener được tạo khi dựng EntityManagerFactory, trước SecurityGraphCache
+    private final ObjectProvider<SecurityGraphCache> cache;
+
+    public SecurityGraphListener(ObjectProvider<SecurityGraphCache> cache) {
+        this.cache = cache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        SecurityGraphCache graphCache = cache.getIfAvailable();
+        if(graphCache == null) return;
+        if(entity instanceof User user) graphCache.userChanged(user.getId(), user.getUsername());
+        else if(entity instanceof Role role) graphCache.roleChanged(role.getId());
+        else if(entity instanceof Authority authority) graphCache.authorityChanged(authority.getId());
+    }
+}
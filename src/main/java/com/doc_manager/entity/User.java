@@ -3,7 +3,11 @@ package com.doc_manager.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 
 import java.util.HashSet;
@@ -11,7 +15,10 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
-@Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@EntityListeners(SecurityGraphListener.class)
+@Table(name = "users", indexes = @Index(name = "idx_users_email", columnList = "email"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -31,7 +38,11 @@ public class User {
     private String name;
     private String email;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // LAZY + cache collection: chỉ load khi cần (UserDetails dùng entity graph)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
@@ -0,0 +1,44 @@
+package com.doc_manager.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Nhóm người dùng (phòng ban, team) để chia sẻ document một lần cho cả nhóm.
+ * Thành viên được thêm/bớt bằng SQL theo lô, collection chỉ dùng để Hibernate tạo bảng group_members.
+ */
+@Entity
+@Table(name = "user_groups")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserGroup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(name = "id", updatable = false, nullable = false)
+    private UUID id;
+
+    @Column(unique = true, nullable = false)
+    private String name;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "group_members",
+            joinColumns = @JoinColumn(name = "group_id"),
+            inverseJoinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "idx_group_members_user", columnList = "user_id")
+    )
+    private Set<User> members = new HashSet<>();
+}
@@ -0,0 +1,34 @@
+package com.doc_manager.extraction;
+
+/**
+ * Giữ tối đa {@code maxChars} ký tự đầu của văn bản, phần sau bị bỏ qua.
+ * Dùng cho các bên cần văn bản (index tìm kiếm) mà không để bộ nhớ tăng theo kích thước tài liệu.
+ */
+public class BoundedTextBuffer implements TextSink {
+
+    private final StringBuilder text;
+    private final int maxChars;
+    private boolean truncated;
+
+    public BoundedTextBuffer(int maxChars) {
+        this.maxChars = maxChars;
+        this.text = new StringBuilder(Math.min(maxChars, 16 * 1024));
+    }
+
+    @Override
+    public void write(char[] ch, int start, int length) {
+        int room = maxChars - text.length();
+        int n = Math.min(room, length);
+        if(n > 0) text.append(ch, start, n);
+        if(n < length) truncated = true;
+    }
+
+    public boolean truncated() {
+        return truncated;
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+}
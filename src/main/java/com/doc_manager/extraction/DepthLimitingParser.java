@@ -0,0 +1,39 @@
+package com.doc_manager.extraction;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.ParserDecorator;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Parser dùng cho tài liệu nhúng (đặt vào ParseContext): bỏ qua tài liệu lồng sâu hơn giới hạn,
+ * chặn các file zip/OLE lồng nhau nhiều tầng. Mỗi lần parse tạo một instance mới.
+ */
+class DepthLimitingParser extends ParserDecorator {
+
+    private final int maxDepth;
+    private int depth;
+
+    DepthLimitingParser(Parser parser, int maxDepth) {
+        super(parser);
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context)
+            throws IOException, SAXException, TikaException {
+        if(depth >= maxDepth) return;
+        depth++;
+        try {
+            super.parse(stream, handler, metadata, context);
+        } finally {
+            depth--;
+        }
+    }
+}
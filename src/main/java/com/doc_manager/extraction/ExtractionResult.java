@@ -0,0 +1,9 @@
+package com.doc_manager.extraction;
+
+/**
+ * @param characters  số ký tự đã chuyển cho sink
+ * @param truncated   true nếu dừng vì chạm giới hạn số ký tự
+ * @param contentType loại nội dung Tika nhận diện được
+ */
+public record ExtractionResult(long characters, boolean truncated, String contentType) {
+}
@@ -0,0 +1,7 @@
+package com.doc_manager.extraction;
+
+public class ExtractionTimeoutException extends Exception {
+    public ExtractionTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.doc_manager.extraction;
+
+/**
+ * Parser không xử lý được tài liệu (quá thời gian, lỗi định dạng, process con chết...).
+ * Lỗi này gắn với nội dung file nên không retry.
+ */
+public class ParseFailedException extends Exception {
+    public ParseFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,132 @@
+package com.doc_manager.extraction;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chạy parse trên thread riêng với giới hạn số parse đồng thời và thời gian tuyệt đối cho mỗi tài liệu.
+ *
+ * Khi quá thời gian, caller nhận {@link ParseFailedException} ngay; thread parse bị interrupt và
+ * được coi là "bỏ rơi". Parser Java không dừng được một cách cưỡng bức, nên thread bỏ rơi vẫn giữ chỗ
+ * trong pool tới khi thực sự thoát: số thread parse không bao giờ vượt pool-size. Khi mọi chỗ đều bị
+ * giữ, caller chờ tối đa timeout rồi nhận {@link TimeoutException} (lỗi tạm, job được retry sau)
+ * thay vì treo; metric {@code scan.parse.abandoned} cho biết bao nhiêu chỗ đang bị file lỗi chiếm.
+ * Với {@code app.scan.parse.mode=forked}, JVM con tự thoát khi quá hạn nên chỗ được trả lại ngay sau đó.
+ */
+@Slf4j
+@Component
+public class ParserPool {
+
+    private final TextExtractor extractor;
+    private final MeterRegistry meterRegistry;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+    private final AtomicInteger abandoned = new AtomicInteger();
+    private final ExecutorService executor;
+
+    public ParserPool(TextExtractor extractor, MeterRegistry meterRegistry,
+                      @Value("${app.scan.parse.pool-size}") int poolSize,
+                      @Value("${app.scan.parse.timeout-millis}") long timeoutMillis) {
+        this.extractor = extractor;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMillis = timeoutMillis;
+        this.permits = new Semaphore(poolSize);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "tika-parse-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        meterRegistry.gauge("scan.parse.abandoned", abandoned);
+    }
+
+    /**
+     * @param fileType loại file đã chuẩn hóa (pdf, docx, other) dùng làm tag cho metric
+     * @throws ParseFailedException khi quá thời gian hoặc parser lỗi với nội dung file
+     * @throws IOException          khi đọc dữ liệu từ storage lỗi (có thể retry)
+     * @throws TimeoutException     khi không có chỗ trống trong thời gian timeout (có thể retry)
+     */
+    public ExtractionResult extract(InputStream stream, TextSink sink, String fileType) throws Exception {
+        ExtractionResult result = run("scan.parse", fileType, () -> extractor.extract(stream, sink));
+        DistributionSummary.builder("scan.extracted.chars")
+                .tag("type", fileType)
+                .register(meterRegistry)
+                .record(result.characters());
+        return result;
+    }
+
+    /**
+     * Chạy một tác vụ đọc nội dung file không tin cậy (ví dụ render PDF) với cùng giới hạn chỗ và thời gian
+     * như parse. Lỗi được phân loại như {@link #extract}; {@link IOException} của tác vụ được ném lại nguyên vẹn.
+     * @param metric tên timer ghi thời gian chạy, tag theo {@code fileType} và kết quả
+     */
+    public <T> T run(String metric, String fileType, Callable<T> task) throws Exception {
+        if(!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)){
+            meterRegistry.counter("scan.parse.rejected", "type", fileType).increment();
+            throw new TimeoutException("No parse slot within " + timeoutMillis + " ms (" + abandoned.get() + " abandoned)");
+        }
+        // bên nào tới trước quyết định: thread xong trước hạn, hay caller bỏ rơi nó
+        AtomicBoolean settled = new AtomicBoolean();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    // chỗ chỉ được trả khi thread parse đã xong, kể cả khi caller đã bỏ đi vì quá hạn
+                    if(!settled.compareAndSet(false, true)) abandoned.decrementAndGet();
+                    permits.release();
+                }
+            });
+        } catch(RejectedExecutionException e){
+            permits.release();
+            throw e;
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch(TimeoutException e){
+            outcome = "timeout";
+            if(settled.compareAndSet(false, true)) abandoned.incrementAndGet();
+            future.cancel(true);
+            throw new ParseFailedException("Parse exceeded " + timeoutMillis + " ms", e);
+        } catch(ExecutionException e){
+            Throwable cause = e.getCause();
+            if(cause instanceof ExtractionTimeoutException){
+                outcome = "timeout";
+                throw new ParseFailedException(cause.getMessage(), cause);
+            }
+            if(cause instanceof IOException io){
+                outcome = "io_error";
+                throw io;
+            }
+            outcome = "failed";
+            throw new ParseFailedException("Parse failed: " + cause, cause);
+        } finally {
+            sample.stop(Timer.builder(metric)
+                    .tag("type", fileType)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,74 @@
+package com.doc_manager.extraction;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Chuyển thẳng ký tự từ parser sang {@link TextSink}, không dựng chuỗi toàn văn bản.
+ * Dừng parser (bằng exception) khi vượt giới hạn ký tự hoặc thời gian.
+ */
+class StreamingTextHandler extends DefaultHandler {
+
+    /** Exception đánh dấu dừng chủ động; nhận diện qua {@link #isStopSignal}. */
+    static final class StopException extends SAXException {
+        final boolean timeout;
+
+        StopException(String message, boolean timeout) {
+            super(message);
+            this.timeout = timeout;
+        }
+    }
+
+    private final TextSink sink;
+    private final long maxChars;
+    private final long deadlineNanos;
+    private long chars;
+    private boolean truncated;
+
+    StreamingTextHandler(TextSink sink, long maxChars, long deadlineNanos) {
+        this.sink = sink;
+        this.maxChars = maxChars;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        write(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        // Tika phát xuống dòng giữa các khối qua ignorableWhitespace; cần giữ để từ không dính nhau
+        write(ch, start, length);
+    }
+
+    private void write(char[] ch, int start, int length) throws SAXException {
+        if(System.nanoTime() - deadlineNanos > 0)
+            throw new StopException("Extraction time limit exceeded", true);
+        long remaining = maxChars - chars;
+        if(length > remaining){
+            sink.write(ch, start, (int) remaining);
+            chars += remaining;
+            truncated = true;
+            throw new StopException("Extraction character limit reached", false);
+        }
+        sink.write(ch, start, length);
+        chars += length;
+    }
+
+    long chars() {
+        return chars;
+    }
+
+    boolean truncated() {
+        return truncated;
+    }
+
+    /** Parser có thể bọc exception của handler trong TikaException, nên phải dò theo chuỗi cause. */
+    static StopException findStopSignal(Throwable t) {
+        for(Throwable cause = t; cause != null; cause = cause.getCause()){
+            if(cause instanceof StopException stop) return stop;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,92 @@
+package com.doc_manager.extraction;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trích xuất văn bản bằng Tika theo kiểu streaming: ký tự đi qua SAX handler thẳng tới
+ * {@link TextSink} nên bộ nhớ cho mỗi lần scan không phụ thuộc kích thước tài liệu.
+ *
+ * Ở chế độ {@code forked}, việc parse chạy trong pool JVM con (Tika ForkParser) với heap riêng
+ * ({@code app.scan.parse.fork-max-heap}). JVM con tự thoát khi một parse vượt {@code app.scan.parse.timeout-millis}
+ * và chết một mình khi hết bộ nhớ, nên file làm parser treo hay phình bộ nhớ không giữ chỗ trong
+ * {@link ParserPool} mãi và không làm sập node API. JVM con được dùng lại cho nhiều file và thay mới
+ * sau {@code app.scan.parse.fork-max-files} file để giới hạn rò rỉ.
+ * Nên gọi qua {@link ParserPool} để có giới hạn đồng thời và thời gian tuyệt đối.
+ */
+@Service
+public class TextExtractor {
+
+    private final Parser delegate;
+    private Parser parser;
+
+    @Value("${app.scan.extract.max-chars}") private long maxChars;
+    @Value("${app.scan.extract.max-millis}") private long maxMillis;
+    @Value("${app.scan.extract.max-embedded-depth}") private int maxEmbeddedDepth;
+    @Value("${app.scan.parse.mode}") private String mode;
+    @Value("${app.scan.parse.pool-size}") private int poolSize;
+    @Value("${app.scan.parse.timeout-millis}") private long parseTimeoutMillis;
+    @Value("${app.scan.parse.fork-max-heap}") private String forkMaxHeap;
+    @Value("${app.scan.parse.fork-max-files}") private int forkMaxFiles;
+
+    public TextExtractor() {
+        this(new AutoDetectParser());
+    }
+
+    TextExtractor(Parser delegate) {
+        this.delegate = delegate;
+        this.parser = delegate;
+    }
+
+    @PostConstruct
+    public void init() {
+        if("forked".equalsIgnoreCase(mode)){
+            ForkParser forkParser = new ForkParser(TextExtractor.class.getClassLoader(), delegate);
+            forkParser.setPoolSize(poolSize);
+            forkParser.setJavaCommand(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-Xmx" + forkMaxHeap, "-Djava.awt.headless=true"));
+            forkParser.setServerParseTimeoutMillis(parseTimeoutMillis);
+            // JVM con kiểm tra hạn parse mỗi nhịp; mặc định 5 s là quá thô so với timeout
+            forkParser.setServerPulseMillis(Math.min(1000, parseTimeoutMillis));
+            forkParser.setMaxFilesProcessedPerServer(forkMaxFiles);
+            parser = forkParser;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if(parser instanceof ForkParser forkParser) forkParser.close();
+    }
+
+    /**
+     * @throws ExtractionTimeoutException khi vượt {@code app.scan.extract.max-millis}.
+     *         Giới hạn thời gian chỉ được kiểm tra khi parser phát ra văn bản.
+     */
+    public ExtractionResult extract(InputStream stream, TextSink sink) throws Exception {
+        Metadata metadata = new Metadata();
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, new DepthLimitingParser(delegate, maxEmbeddedDepth));
+        StreamingTextHandler handler = new StreamingTextHandler(sink, maxChars,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxMillis));
+        try {
+            parser.parse(stream, handler, metadata, context);
+        } catch(Exception e){
+            StreamingTextHandler.StopException stop = StreamingTextHandler.findStopSignal(e);
+            if(stop == null) throw e;
+            if(stop.timeout) throw new ExtractionTimeoutException(stop.getMessage());
+        }
+        return new ExtractionResult(handler.chars(), handler.truncated(), metadata.get(Metadata.CONTENT_TYPE));
+    }
+}
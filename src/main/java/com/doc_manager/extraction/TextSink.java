@@ -0,0 +1,17 @@
+package com.doc_manager.extraction;
+
+/**
+ * Nơi nhận văn bản trích xuất theo từng mảnh; mảng {@code ch} chỉ hợp lệ trong lúc gọi.
+ */
+@FunctionalInterface
+public interface TextSink {
+    void write(char[] ch, int start, int length);
+
+    /** Gửi cùng một mảnh tới sink này rồi tới {@code next}, không sao chép. */
+    default TextSink andThen(TextSink next) {
+        return (ch, start, length) -> {
+            write(ch, start, length);
+            next.write(ch, start, length);
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.doc_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Object MinIO chờ xóa. Được ghi cùng transaction với việc xóa dòng document/blob tham chiếu tới nó,
+ * rồi {@link com.doc_manager.service.StorageCollector} xóa theo lô và thử lại khi MinIO lỗi.
+ */
+@Builder
+@Entity
+@Table(name = "blob_deletions",
+        indexes = @Index(name = "idx_blob_deletions_next_attempt", columnList = "next_attempt_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlobDeletion {
+
+    @Id
+    private String objectName;
+
+    private int attempts;
+    private Instant nextAttemptAt;
+
+    @Column(columnDefinition = "text")
+    private String lastError;
+
+    private Instant createdAt;
+}
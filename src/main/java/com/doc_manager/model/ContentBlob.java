@@ -0,0 +1,42 @@
+package com.doc_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Nội dung file lưu một lần theo SHA-256, dùng chung giữa các {@link Document} có cùng nội dung.
+ * Object trên MinIO chỉ bị xóa khi không còn document nào tham chiếu (ref_count về 0).
+ */
+@Builder
+@Entity
+@Table(name = "blobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentBlob {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private String objectName;
+
+    private Long size;
+    private int refCount;
+
+    // Kết quả scan dùng lại cho mọi document cùng nội dung; null khi chưa scan xong
+    @Column(columnDefinition = "text")
+    private String labelsJson;
+
+    // Phiên bản bộ luật của labelsJson; chỉ dùng lại nhãn khi trùng phiên bản hiện tại
+    @Column(length = 16)
+    private String rulesetVersion;
+
+    private Instant createdAt;
+}
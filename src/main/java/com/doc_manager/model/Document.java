@@ -1,17 +1,28 @@
 package com.doc_manager.model;
 
+import com.doc_manager.entity.Role;
 import com.doc_manager.entity.User;
+import com.doc_manager.entity.UserGroup;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.Instant;
 import java.util.Set;
 
 @Builder
 @Entity
+@Table(name = "document", indexes = {
+        @Index(name = "idx_document_owner_uploaded", columnList = "uploaded_by, uploaded_at, id"),
+        @Index(name = "idx_document_uploaded", columnList = "uploaded_at, id")
+})
+@SQLRestriction("deleted_at is null")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,15 +39,55 @@ public class Document {
     private Instant uploadedAt;
     private String status; // UPLOADED, SCANNED, FLAGGED, etc.
 
+    // SHA-256 của nội dung khi upload qua app; null với upload trực tiếp lên MinIO
+    @Column(length = 64)
+    private String contentHash;
+
     @Column(columnDefinition = "text")
     private String labelsJson;
 
-    // Danh sách user được phép xem
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Phiên bản bộ luật PII đã tạo ra labelsJson; khác phiên bản hiện tại thì được scan lại nền
+    @Column(length = 16)
+    private String rulesetVersion;
+
+    // Tombstone: document đã xóa bị ẩn khỏi mọi truy vấn entity, chờ collector dọn dòng và file
+    @JsonIgnore
+    private Instant deletedAt;
+
+    // Danh sách user được phép xem; chỉ API chi tiết cần, load qua findDetailById
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "document_user",
             joinColumns = @JoinColumn(name = "document_id"),
-            inverseJoinColumns = @JoinColumn(name = "user_id")
+            inverseJoinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "idx_document_user_user", columnList = "user_id, document_id")
     )
     private Set<User> allowedUsers;
+
+    // Chia sẻ theo role/nhóm; chỉ được ghi bằng SQL theo lô, quyền hiệu lực nằm ở document_access
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "document_role",
+            joinColumns = @JoinColumn(name = "document_id"),
+            inverseJoinColumns = @JoinColumn(name = "role_id"),
+            indexes = @Index(name = "idx_document_role_role", columnList = "role_id")
+    )
+    private Set<Role> sharedRoles;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(
+            name = "document_group",
+            joinColumns = @JoinColumn(name = "document_id"),
+            inverseJoinColumns = @JoinColumn(name = "group_id"),
+            indexes = @Index(name = "idx_document_group_group", columnList = "group_id")
+    )
+    private Set<UserGroup> sharedGroups;
 }
\ No newline at end of file
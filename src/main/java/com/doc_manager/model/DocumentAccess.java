@@ -0,0 +1,46 @@
+package com.doc_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.io.Serializable;
+
+/**
+ * Quyền xem hiệu lực đã được tính sẵn: một dòng cho mỗi (document, username) được xem, gồm chủ sở hữu
+ * và người nhận qua user, role hoặc nhóm. Chỉ được ghi bởi
+ * {@link com.doc_manager.service.DocumentAccessService}.
+ */
+@Entity
+@Table(name = "document_access",
+        indexes = @Index(name = "idx_document_access_user", columnList = "username, document_id"))
+@IdClass(DocumentAccess.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentAccess {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Id
+    private String username;
+
+    // chỉ để có FK ON DELETE CASCADE: xóa document theo bất kỳ đường nào cũng xóa quyền của nó
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Document document;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long documentId;
+        private String username;
+    }
+}
@@ -0,0 +1,56 @@
+package com.doc_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.io.Serializable;
+
+/**
+ * Một giá trị PII khác nhau trong một document: loại, HMAC của giá trị đã chuẩn hóa (không lưu giá trị gốc)
+ * và số lần xuất hiện. Dạng truy vấn được của labelsJson; chỉ được ghi bởi
+ * {@link com.doc_manager.service.FindingService}.
+ */
+@Entity
+@Table(name = "document_findings", indexes = {
+        @Index(name = "idx_document_findings_type", columnList = "type, document_id"),
+        @Index(name = "idx_document_findings_value", columnList = "value_hash")
+})
+@IdClass(DocumentFinding.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentFinding {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Id
+    @Column(length = 32)
+    private String type;
+
+    @Id
+    @Column(name = "value_hash", length = 64)
+    private String valueHash;
+
+    private int occurrences;
+
+    // chỉ để có FK ON DELETE CASCADE khi collector xóa hẳn document
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Document document;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long documentId;
+        private String type;
+        private String valueHash;
+    }
+}
@@ -0,0 +1,41 @@
+package com.doc_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+
+/**
+ * Index full-text của document (Postgres tsvector, cấu hình 'simple' vì không có từ điển tiếng Việt).
+ * {@code tsv} = tiêu đề (trọng số A) + nội dung, có GIN index tạo trong schema.sql;
+ * {@code body_tsv} giữ riêng phần nội dung để đổi tiêu đề không cần parse lại file.
+ * Chỉ được ghi bằng SQL trong {@link com.doc_manager.repository.DocumentSearchRepository}.
+ */
+@Entity
+@Table(name = "document_search")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentSearch {
+
+    @Id
+    @Column(name = "document_id")
+    private Long documentId;
+
+    @Column(columnDefinition = "tsvector", insertable = false, updatable = false)
+    private String tsv;
+
+    @Column(columnDefinition = "tsvector", insertable = false, updatable = false)
+    private String bodyTsv;
+
+    private Instant indexedAt;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "document_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Document document;
+}
@@ -0,0 +1,41 @@
+package com.doc_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Job scan bền vững, được ghi cùng transaction với {@link Document} nên không bị mất khi node restart.
+ * Worker trên mọi node lấy job bằng SELECT ... FOR UPDATE SKIP LOCKED và giữ lease trong lúc chạy.
+ */
+@Builder
+@Entity
+@Table(name = "scan_jobs",
+        indexes = @Index(name = "idx_scan_jobs_status_next_attempt", columnList = "status, next_attempt_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScanJob {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "document_id", unique = true, nullable = false)
+    private Long documentId;
+
+    private String status; // PENDING, RUNNING, DONE, DEAD
+    private int attempts;
+    private Instant nextAttemptAt;
+    private String leaseOwner;
+    private Instant leaseExpiresAt;
+
+    @Column(columnDefinition = "text")
+    private String lastError;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,32 @@
+package com.doc_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Builder
+@Entity
+@Table(name = "upload_parts",
+        uniqueConstraints = @UniqueConstraint(name = "uk_upload_parts_upload_part", columnNames = {"upload_id", "part_number"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadPart {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "upload_id", nullable = false)
+    private String uploadId;
+
+    @Column(name = "part_number", nullable = false)
+    private Integer partNumber;
+
+    private Long size;
+    private String etag;
+    private Instant uploadedAt;
+}
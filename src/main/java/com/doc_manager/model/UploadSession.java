@@ -0,0 +1,36 @@
+package com.doc_manager.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Phiên upload nhiều phần (resumable). Mỗi phần là một object tạm trên MinIO,
+ * được ghép lại bằng compose khi client gọi complete.
+ */
+@Builder
+@Entity
+@Table(name = "upload_sessions",
+        indexes = @Index(name = "idx_upload_sessions_status_updated", columnList = "status, updated_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    @Id
+    private String id;
+    private Long documentId;
+    private String objectName;
+    private String contentType;
+    private String uploadedBy; // username
+    private Long totalSize;
+    private Long partSize;
+    private Integer partCount;
+    private String status; // IN_PROGRESS, COMPLETED, ABORTED
+    private Instant createdAt;
+    private Instant updatedAt;
+}
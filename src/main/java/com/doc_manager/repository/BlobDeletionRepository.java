@@ -0,0 +1,51 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.model.BlobDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface BlobDeletionRepository extends JpaRepository<BlobDeletion, String> {
+
+    /**
+     * Nhận một lô object đã tới hạn xóa: đẩy hạn sang {@code leaseUntil} để node khác không lấy trùng
+     * trong lúc gọi MinIO (không giữ khóa dòng qua lời gọi mạng). Node chết giữa chừng thì lô được lấy lại sau lease.
+     */
+    @Transactional
+    @Query(value = """
+            UPDATE blob_deletions SET attempts = attempts + 1, next_attempt_at = :leaseUntil
+            WHERE object_name IN (
+                SELECT object_name FROM blob_deletions
+                WHERE next_attempt_at <= :now
+                ORDER BY next_attempt_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED)
+            RETURNING object_name
+            """, nativeQuery = true)
+    List<String> claimDue(@Param("now") Instant now, @Param("leaseUntil") Instant leaseUntil,
+                          @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from BlobDeletion b where b.objectName in :names")
+    int deleteByObjectNames(@Param("names") Collection<String> names);
+
+    /** Lùi lần thử sau theo cấp số nhân của số lần đã thử, tối đa {@code maxDelaySeconds}. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE blob_deletions
+            SET next_attempt_at = now() + make_interval(secs =>
+                    LEAST(:maxDelaySeconds, :baseDelaySeconds * power(2, LEAST(attempts, 20) - 1))),
+                last_error = :error
+            WHERE object_name IN (:names)
+            """, nativeQuery = true)
+    int markFailed(@Param("names") Collection<String> names, @Param("baseDelaySeconds") long baseDelaySeconds,
+                   @Param("maxDelaySeconds") long maxDelaySeconds, @Param("error") String error);
+}
@@ -0,0 +1,43 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.model.ContentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface ContentBlobRepository extends JpaRepository<ContentBlob, String> {
+
+    /** Tăng ref_count nếu đã có blob cùng hash; trả về object name của blob đó. */
+    @Transactional
+    @Query(value = """
+            UPDATE blobs SET ref_count = ref_count + 1
+            WHERE sha256 = :hash
+            RETURNING object_name
+            """, nativeQuery = true)
+    Optional<String> acquireExisting(@Param("hash") String hash);
+
+    /**
+     * Ghi blob mới hoặc tăng ref_count nếu một upload khác cùng nội dung vừa ghi trước.
+     * Object name trả về là của bản thắng; bên thua phải xóa object của mình.
+     */
+    @Transactional
+    @Query(value = """
+            INSERT INTO blobs (sha256, object_name, size, ref_count, created_at)
+            VALUES (:hash, :objectName, :size, 1, :now)
+            ON CONFLICT (sha256) DO UPDATE SET ref_count = blobs.ref_count + 1
+            RETURNING object_name
+            """, nativeQuery = true)
+    String upsert(@Param("hash") String hash, @Param("objectName") String objectName,
+                  @Param("size") long size, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("update ContentBlob b set b.labelsJson = :labelsJson, b.rulesetVersion = :version where b.sha256 = :hash")
+    int updateLabels(@Param("hash") String hash, @Param("labelsJson") String labelsJson,
+                     @Param("version") String version);
+}
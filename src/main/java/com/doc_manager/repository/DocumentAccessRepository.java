@@ -0,0 +1,104 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.model.DocumentAccess;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Tính lại document_access. Mỗi câu lệnh tính tập quyền hiệu lực rồi chỉ xóa/thêm phần chênh lệch,
+ * nên thêm một người vào nhóm lớn không ghi lại các dòng đã đúng.
+ */
+public interface DocumentAccessRepository extends JpaRepository<DocumentAccess, DocumentAccess.Key> {
+
+    /** Khóa document để các lần tính lại cùng document chạy tuần tự và luôn thấy grant mới nhất. */
+    @Query(value = "SELECT id FROM document WHERE id = :docId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockDocument(@Param("docId") Long docId);
+
+    @Modifying
+    @Query(value = """
+            WITH effective AS (
+                SELECT d.uploaded_by AS username FROM document d WHERE d.id = :docId AND d.deleted_at IS NULL
+                UNION
+                SELECT u.username FROM document_user du
+                JOIN users u ON u.id = du.user_id
+                WHERE du.document_id = :docId
+                UNION
+                SELECT u.username FROM document_role dr
+                JOIN user_roles ur ON ur.role_id = dr.role_id
+                JOIN users u ON u.id = ur.user_id
+                WHERE dr.document_id = :docId
+                UNION
+                SELECT u.username FROM document_group dg
+                JOIN group_members gm ON gm.group_id = dg.group_id
+                JOIN users u ON u.id = gm.user_id
+                WHERE dg.document_id = :docId
+            ), removed AS (
+                DELETE FROM document_access a
+                WHERE a.document_id = :docId
+                  AND a.username NOT IN (SELECT username FROM effective)
+            )
+            INSERT INTO document_access (document_id, username)
+            SELECT :docId, e.username FROM effective e
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int refreshDocument(@Param("docId") Long docId);
+
+    @Modifying
+    @Query(value = """
+            WITH effective AS (
+                SELECT d.id AS document_id FROM document d WHERE d.uploaded_by = :username AND d.deleted_at IS NULL
+                UNION
+                SELECT du.document_id FROM document_user du
+                JOIN users u ON u.id = du.user_id
+                WHERE u.username = :username
+                UNION
+                SELECT dr.document_id FROM document_role dr
+                JOIN user_roles ur ON ur.role_id = dr.role_id
+                JOIN users u ON u.id = ur.user_id
+                WHERE u.username = :username
+                UNION
+                SELECT dg.document_id FROM document_group dg
+                JOIN group_members gm ON gm.group_id = dg.group_id
+                JOIN users u ON u.id = gm.user_id
+                WHERE u.username = :username
+            ), removed AS (
+                DELETE FROM document_access a
+                WHERE a.username = :username
+                  AND a.document_id NOT IN (SELECT document_id FROM effective)
+            )
+            INSERT INTO document_access (document_id, username)
+            SELECT e.document_id, :username FROM effective e
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int refreshUser(@Param("username") String username);
+
+    @Modifying
+    @Query(value = "DELETE FROM document_access", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO document_access (document_id, username)
+            SELECT d.id, d.uploaded_by FROM document d WHERE d.deleted_at IS NULL
+            UNION
+            SELECT du.document_id, u.username FROM document_user du
+            JOIN users u ON u.id = du.user_id
+            UNION
+            SELECT dr.document_id, u.username FROM document_role dr
+            JOIN user_roles ur ON ur.role_id = dr.role_id
+            JOIN users u ON u.id = ur.user_id
+            UNION
+            SELECT dg.document_id, u.username FROM document_group dg
+            JOIN group_members gm ON gm.group_id = dg.group_id
+            JOIN users u ON u.id = gm.user_id
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertAll();
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM document_access)", nativeQuery = true)
+    boolean hasRows();
+}
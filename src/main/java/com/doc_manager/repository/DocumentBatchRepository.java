@@ -0,0 +1,204 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.model.Document;
+import com.doc_manager.model.DocumentFinding;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi/xóa nhiều document bằng JDBC batch. Document dùng id IDENTITY nên Hibernate không gom batch
+ * được khi insert; ở đây mỗi lô là một round trip và id sinh ra được đọc lại qua generated keys.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DocumentBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /** Insert và gán id cho từng document theo đúng thứ tự danh sách. */
+    public void insertDocuments(List<Document> docs) {
+        if(docs.isEmpty()) return;
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement("""
+                        INSERT INTO document (object_name, filename, title, description, size, uploaded_by,
+                                              uploaded_at, status, labels_json, ruleset_version, content_hash)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Document doc = docs.get(i);
+                        ps.setString(1, doc.getObjectName());
+                        ps.setString(2, doc.getFilename());
+                        ps.setString(3, doc.getTitle());
+                        ps.setString(4, doc.getDescription());
+                        ps.setObject(5, doc.getSize(), Types.BIGINT);
+                        ps.setString(6, doc.getUploadedBy());
+                        ps.setTimestamp(7, Timestamp.from(doc.getUploadedAt()));
+                        ps.setString(8, doc.getStatus());
+                        ps.setString(9, doc.getLabelsJson());
+                        ps.setString(10, doc.getRulesetVersion());
+                        ps.setString(11, doc.getContentHash());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return docs.size();
+                    }
+                }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for(int i = 0; i < docs.size(); i++){
+            docs.get(i).setId(((Number) generated.get(i).get("id")).longValue());
+        }
+    }
+
+    public void insertScanJobs(List<Long> documentIds) {
+        if(documentIds.isEmpty()) return;
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO scan_jobs (document_id, status, attempts, next_attempt_at, created_at, updated_at)
+                        VALUES (?, 'PENDING', 0, ?, ?, ?)
+                        ON CONFLICT (document_id) DO NOTHING
+                        """, documentIds, documentIds.size(),
+                (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setTimestamp(2, now);
+                    ps.setTimestamp(3, now);
+                    ps.setTimestamp(4, now);
+                });
+    }
+
+    /** Chia sẻ cùng danh sách email cho nhiều document trong một câu lệnh. */
+    public int insertGrants(Collection<Long> documentIds, Collection<String> emails) {
+        if(documentIds.isEmpty() || emails.isEmpty()) return 0;
+        return namedJdbcTemplate.update("""
+                INSERT INTO document_user (document_id, user_id)
+                SELECT d.id, u.id FROM document d, users u
+                WHERE d.id IN (:ids) AND u.email IN (:emails)
+                ON CONFLICT DO NOTHING
+                """, new MapSqlParameterSource("ids", documentIds).addValue("emails", emails));
+    }
+
+    /** Thay toàn bộ finding của một document bằng một lô insert. */
+    public void replaceFindings(Long documentId, List<DocumentFinding> findings) {
+        jdbcTemplate.update("DELETE FROM document_findings WHERE document_id = ?", documentId);
+        if(findings.isEmpty()) return;
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO document_findings (document_id, type, value_hash, occurrences)
+                        VALUES (?, ?, ?, ?)
+                        """, findings, findings.size(),
+                (ps, finding) -> {
+                    ps.setLong(1, documentId);
+                    ps.setString(2, finding.getType());
+                    ps.setString(3, finding.getValueHash());
+                    ps.setInt(4, finding.getOccurrences());
+                });
+    }
+
+    public record DeletedDocument(Long id, String objectName, String contentHash) {
+    }
+
+    /**
+     * Đánh dấu xóa (tombstone): document biến mất khỏi mọi truy vấn entity ngay, các dòng chia sẻ, quyền,
+     * index tìm kiếm, finding và scan job bị xóa luôn. Dòng document và file được dọn sau bởi collector.
+     * Trả về id các document vừa được đánh dấu.
+     */
+    public List<Long> markDeleted(Collection<Long> documentIds, Instant now) {
+        if(documentIds.isEmpty()) return List.of();
+        List<Long> marked = namedJdbcTemplate.queryForList("""
+                UPDATE document SET deleted_at = :now
+                WHERE id IN (:ids) AND deleted_at IS NULL
+                RETURNING id
+                """, new MapSqlParameterSource("ids", documentIds).addValue("now", Timestamp.from(now)), Long.class);
+        if(marked.isEmpty()) return marked;
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", marked);
+        deleteDependents(ids);
+        namedJdbcTemplate.update("DELETE FROM document_access WHERE document_id IN (:ids)", ids);
+        namedJdbcTemplate.update("DELETE FROM document_search WHERE document_id IN (:ids)", ids);
+        namedJdbcTemplate.update("DELETE FROM document_findings WHERE document_id IN (:ids)", ids);
+        return marked;
+    }
+
+    /** Khóa một lô document đã tombstone, cũ nhất trước; node khác bỏ qua các dòng đang bị khóa. */
+    public List<Long> lockTombstones(int limit) {
+        return jdbcTemplate.queryForList("""
+                SELECT id FROM document
+                WHERE deleted_at IS NOT NULL
+                ORDER BY deleted_at
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+                """, Long.class, limit);
+    }
+
+    /**
+     * Xóa hẳn các dòng document cùng bảng nối và scan job, mỗi bảng một câu lệnh; trả về các document đã xóa.
+     * document_access, document_search và document_findings bị xóa theo qua FK ON DELETE CASCADE.
+     */
+    public List<DeletedDocument> deleteDocuments(Collection<Long> documentIds) {
+        if(documentIds.isEmpty()) return List.of();
+        MapSqlParameterSource ids = new MapSqlParameterSource("ids", documentIds);
+        deleteDependents(ids);
+        return namedJdbcTemplate.query(
+                "DELETE FROM document WHERE id IN (:ids) RETURNING id, object_name, content_hash", ids,
+                (rs, i) -> new DeletedDocument(rs.getLong("id"), rs.getString("object_name"),
+                        rs.getString("content_hash")));
+    }
+
+    // các bảng trỏ tới document không có ON DELETE CASCADE
+    private void deleteDependents(MapSqlParameterSource ids) {
+        namedJdbcTemplate.update("DELETE FROM document_user WHERE document_id IN (:ids)", ids);
+        namedJdbcTemplate.update("DELETE FROM document_role WHERE document_id IN (:ids)", ids);
+        namedJdbcTemplate.update("DELETE FROM document_group WHERE document_id IN (:ids)", ids);
+        namedJdbcTemplate.update("DELETE FROM scan_jobs WHERE document_id IN (:ids)", ids);
+    }
+
+    /** Xếp object vào hàng đợi xóa; object đã có trong hàng đợi được giữ nguyên. */
+    public void enqueueBlobDeletions(Collection<String> objectNames, Instant now) {
+        if(objectNames.isEmpty()) return;
+        Timestamp at = Timestamp.from(now);
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO blob_deletions (object_name, attempts, next_attempt_at, created_at)
+                        VALUES (?, 0, ?, ?)
+                        ON CONFLICT (object_name) DO NOTHING
+                        """, List.copyOf(objectNames), objectNames.size(),
+                (ps, name) -> {
+                    ps.setString(1, name);
+                    ps.setTimestamp(2, at);
+                    ps.setTimestamp(3, at);
+                });
+    }
+
+    /**
+     * Bỏ nhiều tham chiếu tới blob một lúc (hash -> số tham chiếu bỏ đi);
+     * trả về object name của các blob không còn ai dùng, cần xóa trên MinIO sau commit.
+     */
+    public List<String> releaseBlobs(Map<String, Integer> refsByHash) {
+        if(refsByHash.isEmpty()) return List.of();
+        List<Map.Entry<String, Integer>> entries = List.copyOf(refsByHash.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE blobs SET ref_count = ref_count - ? WHERE sha256 = ?",
+                entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setString(2, entry.getKey());
+                });
+        return namedJdbcTemplate.queryForList(
+                "DELETE FROM blobs WHERE sha256 IN (:hashes) AND ref_count <= 0 RETURNING object_name",
+                new MapSqlParameterSource("hashes", refsByHash.keySet()), String.class);
+    }
+}
@@ -0,0 +1,28 @@
+package com.doc_manager.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Vị trí keyset trong danh sách sắp xếp theo (uploadedAt, id) giảm dần.
+ * Được mã hóa base64url để client chỉ coi nó là chuỗi mờ.
+ */
+public record DocumentCursor(Instant uploadedAt, Long id) {
+
+    public String encode() {
+        String raw = uploadedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws IllegalArgumentException khi cursor sai định dạng */
+    public static DocumentCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new DocumentCursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch(RuntimeException e){
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
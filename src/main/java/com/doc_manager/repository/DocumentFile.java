@@ -0,0 +1,8 @@
+package com.doc_manager.repository;
+
+/** Projection chỉ gồm các cột cần để phục vụ file, không load ACL. */
+public interface DocumentFile {
+    Long getId();
+    String getObjectName();
+    String getFilename();
+}
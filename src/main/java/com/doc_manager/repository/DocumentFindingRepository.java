@@ -0,0 +1,37 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.model.DocumentFinding;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface DocumentFindingRepository extends JpaRepository<DocumentFinding, DocumentFinding.Key> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM document_findings WHERE document_id = :docId", nativeQuery = true)
+    int deleteByDocumentId(@Param("docId") Long docId);
+
+    /**
+     * Document trùng nội dung: chép finding của bản mới nhất cùng nội dung đã scan bằng cùng bộ luật.
+     * Trả về 0 khi không còn bản nào như vậy (ví dụ đã bị xóa), caller tự dựng lại từ labelsJson.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO document_findings (document_id, type, value_hash, occurrences)
+            SELECT :docId, f.type, f.value_hash, f.occurrences
+            FROM document_findings f
+            WHERE f.document_id = (SELECT d.id FROM document d
+                                   WHERE d.content_hash = :hash AND d.id <> :docId
+                                     AND d.ruleset_version = :version AND d.deleted_at IS NULL
+                                     AND d.status IN ('SCANNED', 'FLAGGED')
+                                   ORDER BY d.id DESC
+                                   LIMIT 1)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int copyFromSameContent(@Param("docId") Long docId, @Param("hash") String hash,
+                            @Param("version") String version);
+}
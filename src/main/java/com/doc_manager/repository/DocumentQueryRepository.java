@@ -0,0 +1,18 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.response.DocumentSummary;
+
+import java.util.List;
+
+/** Truy vấn danh sách có bộ lọc động, ghép vào {@link DocumentRepository}. */
+public interface DocumentQueryRepository {
+
+    /**
+     * Document mà {@code username} upload hoặc được chia sẻ, mới nhất trước.
+     *
+     * @param after  cursor của dòng cuối trang trước, null cho trang đầu
+     * @param status lọc theo trạng thái, null để bỏ qua
+     * @param title  lọc tiêu đề chứa chuỗi (không phân biệt hoa thường), null để bỏ qua
+     */
+    List<DocumentSummary> findVisible(String username, DocumentCursor after, String status, String title, int limit);
+}
@@ -0,0 +1,53 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.response.DocumentSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+public class DocumentQueryRepositoryImpl implements DocumentQueryRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<DocumentSummary> findVisible(String username, DocumentCursor after, String status,
+                                             String title, int limit) {
+        // document_access đã gồm chủ sở hữu và người nhận qua user/role/nhóm: một lookup theo
+        // (username, document_id) thay cho OR-join; không entity nào được load nên không có fetch EAGER
+        StringBuilder jpql = new StringBuilder("""
+                select new com.doc_manager.response.DocumentSummary(
+                    d.id, d.title, d.filename, d.size, d.status, d.uploadedBy, d.uploadedAt)
+                from Document d
+                where exists (select 1 from DocumentAccess a
+                              where a.documentId = d.id and a.username = :username)
+                """);
+        if(after != null)
+            jpql.append(" and (d.uploadedAt < :afterAt or (d.uploadedAt = :afterAt and d.id < :afterId))");
+        if(status != null)
+            jpql.append(" and d.status = :status");
+        if(title != null)
+            jpql.append(" and lower(d.title) like :title escape '!'");
+        jpql.append(" order by d.uploadedAt desc, d.id desc");
+
+        TypedQuery<DocumentSummary> query = em.createQuery(jpql.toString(), DocumentSummary.class)
+                .setParameter("username", username)
+                .setMaxResults(limit);
+        if(after != null){
+            query.setParameter("afterAt", after.uploadedAt());
+            query.setParameter("afterId", after.id());
+        }
+        if(status != null)
+            query.setParameter("status", status);
+        if(title != null)
+            query.setParameter("title", "%" + escapeLike(title.toLowerCase()) + "%");
+        return query.getResultList();
+    }
+
+    // escape '!' thay vì '\' mặc định của Postgres: backslash trong tiêu đề là ký tự thường
+    static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
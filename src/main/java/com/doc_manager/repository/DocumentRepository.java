@@ -1,10 +1,112 @@
 package com.doc_manager.repository;
 
 import com.doc_manager.model.Document;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
-public interface DocumentRepository extends JpaRepository<Document, Long> {
-    List<Document> findByUploadedByOrAllowedUsersUsername(String uploadedBy, String username);
+public interface DocumentRepository extends JpaRepository<Document, Long>, DocumentQueryRepository {
+    List<Document> findByStatusAndUploadedAtBefore(String status, Instant cutoff);
+
+    Optional<DocumentFile> findFileById(Long id);
+
+    /** Document kèm allowedUsers cho API chi tiết; roles của từng user lấy từ cache L2 khi serialize. */
+    @EntityGraph(attributePaths = "allowedUsers")
+    @Query("select d from Document d where d.id = :id")
+    Optional<Document> findDetailById(@Param("id") Long id);
+
+    @Query("select d.status, count(d) from Document d group by d.status")
+    List<Object[]> countByStatus();
+
+    /** Một dòng: [số document đã scan, số document đã scan bằng bộ luật {@code version}]. */
+    @Query("select count(d), coalesce(sum(case when d.rulesetVersion = :version then 1 else 0 end), 0) " +
+            "from Document d where d.status in ('SCANNED', 'FLAGGED')")
+    List<Object[]> countScannedByRuleset(@Param("version") String version);
+
+    /**
+     * Mỗi dòng: [chủ sở hữu, username có quyền xem hoặc null], lấy từ quyền hiệu lực đã tính sẵn
+     * (user, role, nhóm). Rỗng khi document không tồn tại.
+     */
+    @Query("select d.uploadedBy, a.username from Document d left join DocumentAccess a on a.documentId = d.id " +
+            "where d.id = :id")
+    List<Object[]> findAclRows(@Param("id") Long id);
+
+    @Query("select u.email from Document d join d.allowedUsers u where d.id = :id")
+    List<String> findGrantedEmails(@Param("id") Long id);
+
+    /** Thêm quyền xem theo email trong một câu lệnh; dòng đã có được bỏ qua. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO document_user (document_id, user_id)
+            SELECT :docId, u.id FROM users u WHERE u.email IN (:emails)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertGrants(@Param("docId") Long docId, @Param("emails") Collection<String> emails);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM document_user du USING users u
+            WHERE du.document_id = :docId AND du.user_id = u.id AND u.email IN (:emails)
+            """, nativeQuery = true)
+    int deleteGrants(@Param("docId") Long docId, @Param("emails") Collection<String> emails);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO document_role (document_id, role_id)
+            SELECT :docId, r.id FROM roles r WHERE r.name IN (:names)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertRoleGrants(@Param("docId") Long docId, @Param("names") Collection<String> names);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM document_role dr USING roles r
+            WHERE dr.document_id = :docId AND dr.role_id = r.id AND r.name IN (:names)
+            """, nativeQuery = true)
+    int deleteRoleGrants(@Param("docId") Long docId, @Param("names") Collection<String> names);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO document_group (document_id, group_id)
+            SELECT :docId, g.id FROM user_groups g WHERE g.name IN (:names)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertGroupGrants(@Param("docId") Long docId, @Param("names") Collection<String> names);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM document_group dg USING user_groups g
+            WHERE dg.document_id = :docId AND dg.group_id = g.id AND g.name IN (:names)
+            """, nativeQuery = true)
+    int deleteGroupGrants(@Param("docId") Long docId, @Param("names") Collection<String> names);
+
+    @Modifying
+    @Query(value = "DELETE FROM document_group WHERE group_id = :groupId", nativeQuery = true)
+    int deleteGroupGrantsByGroup(@Param("groupId") UUID groupId);
+
+    @Transactional
+    @Modifying
+    @Query("update Document d set d.status = :status where d.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") String status);
+
+    /** Chuyển trạng thái chỉ khi document còn ở {@code from}; trả về 0 nếu request khác đã chuyển trước. */
+    @Transactional
+    @Modifying
+    @Query("update Document d set d.status = :to where d.id = :id and d.status = :from")
+    int transitionStatus(@Param("id") Long id, @Param("from") String from, @Param("to") String to);
+
+    /** Như {@link #updateStatus} nhưng bỏ qua document đã có kết quả scan (đang được scan lại nền). */
+    @Transactional
+    @Modifying
+    @Query("update Document d set d.status = :status where d.id = :id and d.status not in ('SCANNED', 'FLAGGED')")
+    int updateStatusUnlessScanned(@Param("id") Long id, @Param("status") String status);
 }
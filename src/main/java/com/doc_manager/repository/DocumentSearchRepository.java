@@ -0,0 +1,71 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.model.DocumentSearch;
+import com.doc_manager.response.SearchHit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface DocumentSearchRepository extends JpaRepository<DocumentSearch, Long> {
+
+    /** Ghi hoặc thay index của document (scan lần đầu và scan lại). */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO document_search (document_id, body_tsv, tsv, indexed_at)
+            SELECT :docId, b.body, setweight(to_tsvector('simple', coalesce(:title, '')), 'A') || b.body, :now
+            FROM (SELECT to_tsvector('simple', :text) AS body) b
+            ON CONFLICT (document_id) DO UPDATE
+            SET body_tsv = EXCLUDED.body_tsv, tsv = EXCLUDED.tsv, indexed_at = EXCLUDED.indexed_at
+            """, nativeQuery = true)
+    int upsert(@Param("docId") Long docId, @Param("title") String title,
+               @Param("text") String text, @Param("now") Instant now);
+
+    /** Document trùng nội dung (không được scan lại): dùng lại phần nội dung đã index của bản khác. */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO document_search (document_id, body_tsv, tsv, indexed_at)
+            SELECT :docId, s.body_tsv, setweight(to_tsvector('simple', coalesce(:title, '')), 'A') || s.body_tsv, :now
+            FROM document_search s
+            JOIN document d ON d.id = s.document_id
+            WHERE d.content_hash = :hash AND d.id <> :docId
+            LIMIT 1
+            ON CONFLICT (document_id) DO UPDATE
+            SET body_tsv = EXCLUDED.body_tsv, tsv = EXCLUDED.tsv, indexed_at = EXCLUDED.indexed_at
+            """, nativeQuery = true)
+    int copyFromSameContent(@Param("docId") Long docId, @Param("hash") String hash,
+                            @Param("title") String title, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE document_search
+            SET tsv = setweight(to_tsvector('simple', coalesce(:title, '')), 'A') || body_tsv
+            WHERE document_id = :docId
+            """, nativeQuery = true)
+    int updateTitle(@Param("docId") Long docId, @Param("title") String title);
+
+    /**
+     * Tìm theo cú pháp kiểu web ("cụm từ", -loại trừ, OR), chỉ trong các document user được xem.
+     */
+    @Query(value = """
+            SELECT d.id AS id, d.title AS title, d.filename AS filename, d.status AS status,
+                   d.uploaded_by AS uploadedBy, d.uploaded_at AS uploadedAt,
+                   ts_rank_cd(s.tsv, q)::float8 AS rank
+            FROM websearch_to_tsquery('simple', :query) q,
+                 document_search s
+            JOIN document_access a ON a.document_id = s.document_id AND a.username = :username
+            JOIN document d ON d.id = s.document_id
+            WHERE s.tsv @@ q AND d.deleted_at IS NULL
+            ORDER BY rank DESC, d.id DESC
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<SearchHit> search(@Param("username") String username, @Param("query") String query,
+                           @Param("limit") int limit, @Param("offset") long offset);
+}
@@ -0,0 +1,115 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.response.DocumentSummary;
+import com.doc_manager.response.FindingBucket;
+import com.doc_manager.response.FindingTypeCount;
+import com.doc_manager.response.StatusCount;
+import com.doc_manager.response.UploaderFindings;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Thống kê finding cho admin, gom nhóm hoàn toàn trong Postgres. Mọi truy vấn giới hạn theo khoảng
+ * [from, to) của uploaded_at (idx_document_uploaded) rồi nối document_findings qua khóa chính.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FindingAnalyticsRepository {
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public List<FindingTypeCount> countByType(Instant from, Instant to) {
+        return namedJdbcTemplate.query("""
+                SELECT f.type, count(DISTINCT f.document_id) AS documents,
+                       count(DISTINCT f.value_hash) AS distinct_values, sum(f.occurrences) AS occurrences
+                FROM document d
+                JOIN document_findings f ON f.document_id = d.id
+                WHERE d.uploaded_at >= :from AND d.uploaded_at < :to AND d.deleted_at IS NULL
+                GROUP BY f.type
+                ORDER BY documents DESC, f.type
+                """, window(from, to),
+                (rs, i) -> new FindingTypeCount(rs.getString("type"), rs.getLong("documents"),
+                        rs.getLong("distinct_values"), rs.getLong("occurrences")));
+    }
+
+    public List<StatusCount> countByStatus(Instant from, Instant to) {
+        return namedJdbcTemplate.query("""
+                SELECT d.status, count(*) AS documents
+                FROM document d
+                WHERE d.uploaded_at >= :from AND d.uploaded_at < :to AND d.deleted_at IS NULL
+                GROUP BY d.status
+                ORDER BY documents DESC
+                """, window(from, to),
+                (rs, i) -> new StatusCount(rs.getString("status"), rs.getLong("documents")));
+    }
+
+    /** Người upload nhiều document bị gắn cờ nhất trước. */
+    public List<UploaderFindings> countByUploader(Instant from, Instant to, int limit) {
+        return namedJdbcTemplate.query("""
+                SELECT d.uploaded_by, count(*) AS documents,
+                       count(*) FILTER (WHERE d.status = 'FLAGGED') AS flagged,
+                       coalesce(sum(f.occurrences), 0) AS occurrences
+                FROM document d
+                LEFT JOIN LATERAL (SELECT sum(occurrences) AS occurrences FROM document_findings
+                                   WHERE document_id = d.id) f ON true
+                WHERE d.uploaded_at >= :from AND d.uploaded_at < :to AND d.deleted_at IS NULL
+                GROUP BY d.uploaded_by
+                ORDER BY flagged DESC, documents DESC
+                LIMIT :limit
+                """, window(from, to).addValue("limit", limit),
+                (rs, i) -> new UploaderFindings(rs.getString("uploaded_by"), rs.getLong("documents"),
+                        rs.getLong("flagged"), rs.getLong("occurrences")));
+    }
+
+    /** @param bucket đơn vị của date_trunc: hour, day, week hoặc month (caller đã kiểm tra) */
+    public List<FindingBucket> timeline(Instant from, Instant to, String bucket) {
+        return namedJdbcTemplate.query("""
+                SELECT date_trunc(:bucket, d.uploaded_at) AS start, count(*) AS documents,
+                       count(*) FILTER (WHERE d.status = 'FLAGGED') AS flagged,
+                       coalesce(sum(f.occurrences), 0) AS occurrences
+                FROM document d
+                LEFT JOIN LATERAL (SELECT sum(occurrences) AS occurrences FROM document_findings
+                                   WHERE document_id = d.id) f ON true
+                WHERE d.uploaded_at >= :from AND d.uploaded_at < :to AND d.deleted_at IS NULL
+                GROUP BY 1
+                ORDER BY 1
+                """, window(from, to).addValue("bucket", bucket),
+                (rs, i) -> new FindingBucket(rs.getTimestamp("start").toInstant(), rs.getLong("documents"),
+                        rs.getLong("flagged"), rs.getLong("occurrences")));
+    }
+
+    /**
+     * Document mới nhất chứa loại PII cho trước, hoặc đúng một giá trị nếu có {@code valueHash}
+     * (idx_document_findings_value / idx_document_findings_type).
+     */
+    public List<DocumentSummary> findDocuments(String type, String valueHash, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("type", type).addValue("limit", limit);
+        String valueFilter = "";
+        if(valueHash != null){
+            valueFilter = " AND f.value_hash = :valueHash";
+            params.addValue("valueHash", valueHash);
+        }
+        return namedJdbcTemplate.query("""
+                SELECT d.id, d.title, d.filename, d.size, d.status, d.uploaded_by, d.uploaded_at
+                FROM document d
+                WHERE d.deleted_at IS NULL
+                  AND EXISTS (SELECT 1 FROM document_findings f
+                              WHERE f.document_id = d.id AND f.type = :type%s)
+                ORDER BY d.uploaded_at DESC, d.id DESC
+                LIMIT :limit
+                """.formatted(valueFilter), params,
+                (rs, i) -> new DocumentSummary(rs.getLong("id"), rs.getString("title"), rs.getString("filename"),
+                        rs.getObject("size", Long.class), rs.getString("status"), rs.getString("uploaded_by"),
+                        rs.getTimestamp("uploaded_at").toInstant()));
+    }
+
+    private static MapSqlParameterSource window(Instant from, Instant to) {
+        return new MapSqlParameterSource("from", Timestamp.from(from)).addValue("to", Timestamp.from(to));
+    }
+}
@@ -0,0 +1,117 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.model.ScanJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ScanJobRepository extends JpaRepository<ScanJob, Long> {
+
+    Optional<ScanJob> findByDocumentId(Long documentId);
+
+    List<ScanJob> findByStatusOrderByUpdatedAtDesc(String status);
+
+    @Query("select j.status, count(j) from ScanJob j group by j.status")
+    List<Object[]> countByStatus();
+
+    long countByStatusIn(Collection<String> statuses);
+
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryLock(@Param("key") long key);
+
+    /** Hạn chạy của job PENDING đã tới hạn mà chờ lâu nhất; null khi không có job nào đang chờ. */
+    @Query("select min(j.nextAttemptAt) from ScanJob j where j.status = 'PENDING' and j.nextAttemptAt <= :now")
+    Instant findOldestDue(@Param("now") Instant now);
+
+    /**
+     * Khóa một lô job sẵn sàng chạy: PENDING đã tới hạn, hoặc RUNNING mà lease đã hết
+     * (node giữ job đã chết). SKIP LOCKED để các node khác lấy lô khác thay vì chờ nhau.
+     */
+    @Query(value = """
+            SELECT * FROM scan_jobs
+            WHERE (status = 'PENDING' AND next_attempt_at <= :now)
+               OR (status = 'RUNNING' AND lease_expires_at < :now)
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<ScanJob> lockNextBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update ScanJob j set j.leaseExpiresAt = :until, j.updatedAt = :now " +
+            "where j.leaseOwner = :owner and j.status = 'RUNNING' and j.id in :ids")
+    int extendLeases(@Param("owner") String owner, @Param("ids") Collection<Long> ids,
+                     @Param("until") Instant until, @Param("now") Instant now);
+
+    // Các lệnh kết thúc một lần chạy chỉ có tác dụng khi node gọi vẫn giữ lease: job đã bị node khác
+    // nhận lại sau khi lease hết hạn thì không bị ghi đè (trả về 0)
+
+    @Modifying
+    @Query("update ScanJob j set j.status = 'DONE', j.leaseOwner = null, j.leaseExpiresAt = null, " +
+            "j.lastError = null, j.updatedAt = :now " +
+            "where j.id = :id and j.leaseOwner = :owner and j.status = 'RUNNING'")
+    int complete(@Param("id") Long id, @Param("owner") String owner, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update ScanJob j set j.status = 'PENDING', j.nextAttemptAt = :nextAttemptAt, j.leaseOwner = null, " +
+            "j.leaseExpiresAt = null, j.lastError = :error, j.updatedAt = :now " +
+            "where j.id = :id and j.leaseOwner = :owner and j.status = 'RUNNING'")
+    int retryLater(@Param("id") Long id, @Param("owner") String owner, @Param("nextAttemptAt") Instant nextAttemptAt,
+                   @Param("error") String error, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update ScanJob j set j.status = 'DEAD', j.leaseOwner = null, j.leaseExpiresAt = null, " +
+            "j.lastError = :error, j.updatedAt = :now " +
+            "where j.id = :id and j.leaseOwner = :owner and j.status = 'RUNNING'")
+    int markDead(@Param("id") Long id, @Param("owner") String owner,
+                 @Param("error") String error, @Param("now") Instant now);
+
+    @Modifying
+    @Query("update ScanJob j set j.status = 'PENDING', " +
+            "j.attempts = case when j.attempts > 0 then j.attempts - 1 else 0 end, " +
+            "j.leaseOwner = null, j.leaseExpiresAt = null, j.nextAttemptAt = :now, j.updatedAt = :now " +
+            "where j.id = :id and j.leaseOwner = :owner and j.status = 'RUNNING'")
+    int release(@Param("id") Long id, @Param("owner") String owner, @Param("now") Instant now);
+
+    /**
+     * Tạo job cho document còn chờ scan nhưng chưa có job (dữ liệu trước khi có bảng scan_jobs).
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO scan_jobs (document_id, status, attempts, next_attempt_at, created_at, updated_at)
+            SELECT d.id, 'PENDING', 0, :now, :now, :now FROM document d
+            WHERE d.status IN ('UPLOADED', 'QUEUED', 'SCANNING') AND d.deleted_at IS NULL
+              AND NOT EXISTS (SELECT 1 FROM scan_jobs j WHERE j.document_id = d.id)
+            """, nativeQuery = true)
+    int backfillMissingJobs(@Param("now") Instant now);
+
+    /**
+     * Tạo (hoặc đưa về PENDING) job cho tối đa {@code limit} document đã scan bằng bộ luật khác {@code version},
+     * lấy theo id tăng dần sau {@code afterId}. Bỏ qua document đang có job chờ/chạy.
+     * Trả về id các document đã được xếp hàng.
+     */
+    @Transactional
+    @Query(value = """
+            INSERT INTO scan_jobs (document_id, status, attempts, next_attempt_at, created_at, updated_at)
+            SELECT d.id, 'PENDING', 0, :now, :now, :now FROM document d
+            WHERE d.id > :afterId AND d.status IN ('SCANNED', 'FLAGGED') AND d.deleted_at IS NULL
+              AND d.ruleset_version IS DISTINCT FROM :version
+              AND NOT EXISTS (SELECT 1 FROM scan_jobs j WHERE j.document_id = d.id
+                              AND j.status IN ('PENDING', 'RUNNING'))
+            ORDER BY d.id
+            LIMIT :limit
+            ON CONFLICT (document_id) DO UPDATE
+                SET status = 'PENDING', attempts = 0, next_attempt_at = EXCLUDED.next_attempt_at,
+                    lease_owner = NULL, lease_expires_at = NULL, last_error = NULL, updated_at = EXCLUDED.updated_at
+            RETURNING document_id
+            """, nativeQuery = true)
+    List<Long> enqueueStale(@Param("version") String version, @Param("afterId") long afterId,
+                            @Param("limit") int limit, @Param("now") Instant now);
+}
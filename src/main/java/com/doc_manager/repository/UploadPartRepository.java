@@ -0,0 +1,21 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.model.UploadPart;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadPartRepository extends JpaRepository<UploadPart, Long> {
+    List<UploadPart> findByUploadIdOrderByPartNumber(String uploadId);
+    Optional<UploadPart> findByUploadIdAndPartNumber(String uploadId, Integer partNumber);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UploadPart p where p.uploadId = :uploadId")
+    void deleteByUploadId(@Param("uploadId") String uploadId);
+}
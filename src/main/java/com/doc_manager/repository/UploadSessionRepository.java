@@ -0,0 +1,23 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    List<UploadSession> findByStatusAndUpdatedAtBefore(String status, Instant cutoff);
+    boolean existsByDocumentIdAndStatus(Long documentId, String status);
+
+    /** Chuyển trạng thái chỉ khi phiên còn ở {@code from}; dòng bị khóa tới hết transaction của caller. */
+    @Transactional
+    @Modifying
+    @Query("update UploadSession s set s.status = :to, s.updatedAt = :now where s.id = :id and s.status = :from")
+    int transitionStatus(@Param("id") String id, @Param("from") String from, @Param("to") String to,
+                         @Param("now") Instant now);
+}
@@ -0,0 +1,39 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.entity.UserGroup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserGroupRepository extends JpaRepository<UserGroup, UUID> {
+    Optional<UserGroup> findByName(String name);
+
+    @Query("select g.name from UserGroup g where g.name in :names")
+    List<String> findExistingNames(@Param("names") Collection<String> names);
+
+    @Query("select u.username from UserGroup g join g.members u where g.id = :id")
+    List<String> findMemberUsernames(@Param("id") UUID id);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO group_members (group_id, user_id)
+            SELECT :groupId, u.id FROM users u WHERE u.email IN (:emails)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertMembers(@Param("groupId") UUID groupId, @Param("emails") Collection<String> emails);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM group_members gm USING users u
+            WHERE gm.group_id = :groupId AND gm.user_id = u.id AND u.email IN (:emails)
+            """, nativeQuery = true)
+    int deleteMembers(@Param("groupId") UUID groupId, @Param("emails") Collection<String> emails);
+}
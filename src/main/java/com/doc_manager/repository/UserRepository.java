@@ -1,14 +1,53 @@
 package com.doc_manager.repository;
 
 import com.doc_manager.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByEmail(String email);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
+
+    /** User kèm roles và authorities trong một query, dùng khi dựng UserDetails. */
+    @EntityGraph(attributePaths = {"roles", "roles.authorities"})
+    @Query("select u from User u where u.username = :username")
+    Optional<User> findWithRolesByUsername(@Param("username") String username);
+
+    /** Chỉ trả về email, không load User cùng roles/authorities. */
+    @Query("select distinct u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select u.username from User u where u.email in :emails")
+    List<String> findUsernamesByEmails(@Param("emails") Collection<String> emails);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_roles (user_id, role_id)
+            SELECT :userId, r.id FROM roles r WHERE r.name IN (:names)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertRoles(@Param("userId") UUID userId, @Param("names") Collection<String> names);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM user_roles
+            WHERE user_id = :userId AND role_id IN (SELECT r.id FROM roles r WHERE r.name IN (:names))
+            """, nativeQuery = true)
+    int deleteRoles(@Param("userId") UUID userId, @Param("names") Collection<String> names);
 }
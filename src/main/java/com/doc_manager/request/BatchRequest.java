@@ -0,0 +1,12 @@
+package com.doc_manager.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.LinkedHashSet;
+
+@Data
+public class BatchRequest {
+    @NotEmpty
+    private LinkedHashSet<Long> ids;
+}
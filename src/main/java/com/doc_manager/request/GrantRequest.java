@@ -0,0 +1,12 @@
+package com.doc_manager.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.Set;
+
+@Data
+public class GrantRequest {
+    @NotEmpty
+    private Set<String> emails;
+}
@@ -0,0 +1,10 @@
+package com.doc_manager.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class GroupRequest {
+    @NotBlank
+    private String name;
+}
@@ -0,0 +1,13 @@
+package com.doc_manager.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.Set;
+
+/** Tên role hoặc tên nhóm để chia sẻ/thu hồi. */
+@Data
+public class ShareRequest {
+    @NotEmpty
+    private Set<String> names;
+}
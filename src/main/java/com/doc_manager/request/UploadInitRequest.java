@@ -0,0 +1,27 @@
+package com.doc_manager.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.util.Set;
+
+@Data
+public class UploadInitRequest {
+    @NotBlank
+    private String filename;
+
+    @NotBlank
+    private String contentType;
+
+    @NotNull @Positive
+    private Long size;
+
+    @NotBlank
+    private String title;
+
+    private String description;
+
+    private Set<String> allowedUserEmails;
+}
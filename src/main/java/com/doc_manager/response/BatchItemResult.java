@@ -0,0 +1,16 @@
+package com.doc_manager.response;
+
+/**
+ * Kết quả của một mục trong thao tác theo lô; {@code error} null khi thành công.
+ * {@code item} là tên file (upload) hoặc id document (xóa, tải).
+ */
+public record BatchItemResult(String item, Long documentId, String status, String error) {
+
+    public static BatchItemResult ok(String item, Long documentId, String status) {
+        return new BatchItemResult(item, documentId, status, null);
+    }
+
+    public static BatchItemResult failed(String item, Long documentId, String error) {
+        return new BatchItemResult(item, documentId, "FAILED", error);
+    }
+}
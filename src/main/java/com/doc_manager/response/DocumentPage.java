@@ -0,0 +1,7 @@
+package com.doc_manager.response;
+
+import java.util.List;
+
+/** Một trang danh sách; {@code nextCursor} null khi đã hết. */
+public record DocumentPage(List<DocumentSummary> items, String nextCursor) {
+}
@@ -0,0 +1,8 @@
+package com.doc_manager.response;
+
+import java.time.Instant;
+
+/** Dòng trong danh sách document: chỉ các cột của bảng document, không kéo theo ACL. */
+public record DocumentSummary(Long id, String title, String filename, Long size,
+                              String status, String uploadedBy, Instant uploadedAt) {
+}
@@ -0,0 +1,7 @@
+package com.doc_manager.response;
+
+import java.time.Instant;
+
+/** Một khoảng thời gian (theo uploaded_at) trên biểu đồ: bắt đầu khoảng, số document, số bị gắn cờ. */
+public record FindingBucket(Instant start, long documents, long flagged, long occurrences) {
+}
@@ -0,0 +1,9 @@
+package com.doc_manager.response;
+
+/**
+ * @param documents      số document có ít nhất một giá trị loại này
+ * @param distinctValues số giá trị khác nhau (theo hash) trên các document đó
+ * @param occurrences    tổng số lần xuất hiện
+ */
+public record FindingTypeCount(String type, long documents, long distinctValues, long occurrences) {
+}
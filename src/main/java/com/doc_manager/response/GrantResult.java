@@ -0,0 +1,7 @@
+package com.doc_manager.response;
+
+import java.util.List;
+
+/** Kết quả thêm/bớt quyền xem: số dòng thay đổi và các email/tên không khớp user, role hay nhóm nào. */
+public record GrantResult(int changed, List<String> unresolved) {
+}
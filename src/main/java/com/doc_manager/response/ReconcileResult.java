@@ -0,0 +1,13 @@
+package com.doc_manager.response;
+
+import java.util.List;
+
+/**
+ * Kết quả đối soát bucket với DB.
+ * @param orphanObjects  object không còn dòng nào tham chiếu, đã được xếp vào hàng đợi xóa
+ * @param missingObjects document còn hiệu lực nhưng object không có trên MinIO
+ * @param missingSamples một phần object name bị thiếu, để tra cứu
+ */
+public record ReconcileResult(long scannedObjects, long orphanObjects, long missingObjects,
+                              List<String> missingSamples) {
+}
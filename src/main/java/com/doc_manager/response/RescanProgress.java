@@ -0,0 +1,12 @@
+package com.doc_manager.response;
+
+/**
+ * Tiến độ scan lại theo bộ luật hiện tại.
+ * @param scanned          document đã có kết quả scan (SCANNED/FLAGGED)
+ * @param current          trong số đó, document đã scan bằng bộ luật hiện tại
+ * @param queuedJobs       job đang chờ hoặc đang chạy, gồm cả scan của upload mới
+ * @param estimatedMinutes ước lượng theo giới hạn tốc độ; null khi đã xong hoặc scan lại đang tắt
+ */
+public record RescanProgress(String rulesetVersion, long scanned, long current, long stale,
+                             long queuedJobs, int maxPerMinute, Long estimatedMinutes) {
+}
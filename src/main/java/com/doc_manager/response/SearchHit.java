@@ -0,0 +1,14 @@
+package com.doc_manager.response;
+
+import java.time.Instant;
+
+/** Một kết quả tìm kiếm (projection từ câu SQL native, tên alias khớp tên getter). */
+public interface SearchHit {
+    Long getId();
+    String getTitle();
+    String getFilename();
+    String getStatus();
+    String getUploadedBy();
+    Instant getUploadedAt();
+    Double getRank();
+}
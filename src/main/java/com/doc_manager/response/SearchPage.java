@@ -0,0 +1,6 @@
+package com.doc_manager.response;
+
+import java.util.List;
+
+public record SearchPage(List<SearchHit> items, int page, boolean hasMore) {
+}
@@ -0,0 +1,4 @@
+package com.doc_manager.response;
+
+public record StatusCount(String status, long documents) {
+}
@@ -0,0 +1,5 @@
+package com.doc_manager.response;
+
+/** Thống kê theo người upload; {@code occurrences} là tổng số lần xuất hiện PII trong các document của họ. */
+public record UploaderFindings(String uploadedBy, long documents, long flagged, long occurrences) {
+}
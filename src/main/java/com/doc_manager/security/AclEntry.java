@@ -0,0 +1,17 @@
+package com.doc_manager.security;
+
+import java.util.Arrays;
+
+/**
+ * ACL thu gọn của một document: chủ sở hữu và danh sách principal được xem (đã sắp xếp).
+ */
+public record AclEntry(int owner, int[] readers) {
+
+    public boolean isOwner(int principal) {
+        return owner == principal;
+    }
+
+    public boolean canRead(int principal) {
+        return owner == principal || Arrays.binarySearch(readers, principal) >= 0;
+    }
+}
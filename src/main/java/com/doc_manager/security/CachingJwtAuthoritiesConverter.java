@@ -0,0 +1,102 @@
+package com.doc_manager.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chuyển role trong claim {@code realm_access.roles} (Keycloak) thành {@code ROLE_*}, cache theo token:
+ * khóa là {@code jti}, hoặc SHA-256 của token nếu không có. Mỗi entry hết hạn cùng lúc với token
+ * (tối đa {@code max-ttl}) nên token mới sau khi đổi role luôn được tính lại.
+ */
+@Component
+public class CachingJwtAuthoritiesConverter implements Converter<Jwt, Collection<GrantedAuthority>> {
+
+    private final Cache<String, List<GrantedAuthority>> cache;
+    // tập role nhỏ và cố định: dùng chung một đối tượng authority cho mỗi role
+    private final Map<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+    private final long maxTtlNanos;
+
+    public CachingJwtAuthoritiesConverter(MeterRegistry meterRegistry,
+                                          @Value("${app.security.jwt.authorities-cache-size}") long cacheSize,
+                                          @Value("${app.security.jwt.authorities-max-ttl-seconds}") long maxTtlSeconds) {
+        this.maxTtlNanos = Duration.ofSeconds(maxTtlSeconds).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, List<GrantedAuthority>>() {
+                    @Override
+                    public long expireAfterCreate(String key, List<GrantedAuthority> value, long currentTime) {
+                        return maxTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, List<GrantedAuthority> value, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, List<GrantedAuthority> value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.authorities");
+    }
+
+    @Override
+    public Collection<GrantedAuthority> convert(Jwt jwt) {
+        String key = key(jwt);
+        List<GrantedAuthority> cached = cache.getIfPresent(key);
+        if(cached != null) return cached;
+
+        List<GrantedAuthority> converted = extract(jwt);
+        Instant expiresAt = jwt.getExpiresAt();
+        long ttl = expiresAt == null ? maxTtlNanos
+                : Math.min(maxTtlNanos, Duration.between(Instant.now(), expiresAt).toNanos());
+        if(ttl > 0) cache.policy().expireVariably().ifPresent(p -> p.put(key, converted, Duration.ofNanos(ttl)));
+        return converted;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<GrantedAuthority> extract(Jwt jwt) {
+        Map<String, Object> realmAccess = jwt.getClaim("realm_access");
+        if(realmAccess == null || !(realmAccess.get("roles") instanceof Collection<?> roles)) return List.of();
+        return roles.stream()
+                .map(String::valueOf)
+                .map(role -> authorities.computeIfAbsent(role, r -> new SimpleGrantedAuthority("ROLE_" + r)))
+                .toList();
+    }
+
+    private static String key(Jwt jwt) {
+        String jti = jwt.getId();
+        if(jti != null) return jwt.getIssuer() + "#" + jti;
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(jwt.getTokenValue().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch(NoSuchAlgorithmException e){
+            throw new IllegalStateException(e);
+        }
+    }
+}
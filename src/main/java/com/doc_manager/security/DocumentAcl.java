@@ -0,0 +1,102 @@
+package com.doc_manager.security;
+
+import com.doc_manager.repository.DocumentRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Kiểm tra quyền trên document bằng ACL đã cache, không load entity Document và đồ thị allowedUsers.
+ * Dùng được trong SpEL: {@code @PreAuthorize("@documentAcl.canRead(#id, authentication)")}.
+ *
+ * Cache bị xóa tại chỗ khi document hoặc danh sách chia sẻ thay đổi; TTL giới hạn độ trễ
+ * khi thay đổi xảy ra trên node khác.
+ */
+@Component("documentAcl")
+public class DocumentAcl {
+
+    private final DocumentRepository docRepo;
+    private final PrincipalRegistry principals;
+    private final LoadingCache<Long, AclEntry> cache;
+
+    public DocumentAcl(DocumentRepository docRepo, PrincipalRegistry principals, MeterRegistry meterRegistry,
+                       @Value("${app.acl.cache-size}") long cacheSize,
+                       @Value("${app.acl.cache-ttl-seconds}") long ttlSeconds) {
+        this.docRepo = docRepo;
+        this.principals = principals;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "document.acl");
+    }
+
+    /** null khi document không tồn tại (không cache kết quả này). */
+    private AclEntry load(Long docId) {
+        List<Object[]> rows = docRepo.findAclRows(docId);
+        if(rows.isEmpty()) return null;
+        int owner = principals.idOf((String) rows.get(0)[0]);
+        int[] readers = rows.stream()
+                .filter(row -> row[1] != null)
+                .mapToInt(row -> principals.idOf((String) row[1]))
+                .sorted()
+                .distinct()
+                .toArray();
+        return new AclEntry(owner, readers);
+    }
+
+    public AclEntry find(Long docId) {
+        return cache.get(docId);
+    }
+
+    public boolean exists(Long docId) {
+        return find(docId) != null;
+    }
+
+    public boolean canRead(Long docId, Authentication auth) {
+        AclEntry acl = find(docId);
+        return acl != null && canRead(acl, auth);
+    }
+
+    public boolean canModify(Long docId, Authentication auth) {
+        AclEntry acl = find(docId);
+        return acl != null && canModify(acl, auth);
+    }
+
+    public boolean canRead(AclEntry acl, Authentication auth) {
+        return acl.canRead(principals.idOf(auth.getName())) || isAdmin(auth);
+    }
+
+    public boolean canModify(AclEntry acl, Authentication auth) {
+        return acl.isOwner(principals.idOf(auth.getName())) || isAdmin(auth);
+    }
+
+    public static boolean isAdmin(Authentication auth) {
+        for(GrantedAuthority authority : auth.getAuthorities()){
+            if("ROLE_ADMIN".equals(authority.getAuthority())) return true;
+        }
+        return false;
+    }
+
+    public void evict(Long docId) {
+        cache.invalidate(docId);
+    }
+
+    public void evictAll(Iterable<Long> docIds) {
+        cache.invalidateAll(docIds);
+    }
+
+    /** Dùng khi thành viên nhóm/role thay đổi: không biết trước document nào bị ảnh hưởng. */
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,21 @@
+package com.doc_manager.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gán mỗi username một số nguyên cố định trong vòng đời JVM để ACL lưu dạng int[] thay vì chuỗi.
+ * Số id chỉ có nghĩa trong node hiện tại, không được lưu xuống DB.
+ */
+@Component
+public class PrincipalRegistry {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public int idOf(String username) {
+        return ids.computeIfAbsent(username, u -> next.getAndIncrement());
+    }
+}
@@ -2,6 +2,11 @@ package com.doc_manager.service;
 
 import com.doc_manager.entity.User;
 import com.doc_manager.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -9,40 +14,74 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * Nạp user kèm role/authority, cache theo username trong cache-ttl-seconds. Khi đổi role của user
+ * cần gọi {@link #evict(String)} (hoặc {@link #evictAll()} nếu sửa role/authority trực tiếp trong DB).
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final Cache<String, Snapshot> cache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.security.user-details.cache-size}") long cacheSize,
+                                    @Value("${app.security.user-details.cache-ttl-seconds}") long cacheTtlSeconds) {
         this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.details");
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        Snapshot snapshot = cache.get(username, this::load);
+        if(snapshot == null) throw new UsernameNotFoundException("User not found: " + username);
 
+        // ProviderManager xóa password trên đối tượng trả về (eraseCredentials) nên mỗi lần tạo User mới
         return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                mapRolesAndAuthorities(user)
+                snapshot.username(),
+                snapshot.password(),
+                snapshot.authorities()
         );
     }
 
-    private Collection<? extends GrantedAuthority> mapRolesAndAuthorities(User user) {
+    public void evict(String username) {
+        cache.invalidate(username);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    private Snapshot load(String username) {
+        return userRepository.findWithRolesByUsername(username)
+                .map(user -> new Snapshot(user.getUsername(), user.getPassword(), mapRolesAndAuthorities(user)))
+                .orElse(null);
+    }
+
+    private Set<GrantedAuthority> mapRolesAndAuthorities(User user) {
         Set<GrantedAuthority> authorities = user.getRoles().stream()
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
-                .collect(Collectors.toSet());
+                .collect(Collectors.toCollection(HashSet::new));
         user.getRoles().forEach(role ->
                 role.getAuthorities().forEach(auth ->
                         authorities.add(new SimpleGrantedAuthority(auth.getName()))
                 )
         );
-        return authorities;
+        return Set.copyOf(authorities);
     }
+
+    /** Dữ liệu bất biến được cache; không cache chính đối tượng UserDetails. */
+    private record Snapshot(String username, String password, Collection<GrantedAuthority> authorities) {}
 }
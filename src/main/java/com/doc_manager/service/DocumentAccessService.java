@@ -0,0 +1,76 @@
+package com.doc_manager.service;
+
+import com.doc_manager.repository.DocumentAccessRepository;
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.security.DocumentAcl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Giữ bảng document_access khớp với grant (user, role, nhóm). Gọi trong cùng transaction với thay đổi:
+ * theo document khi grant của document đổi, theo user khi thành viên nhóm/role đổi.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentAccessService {
+
+    private final DocumentAccessRepository accessRepo;
+    private final DocumentRepository docRepo;
+    private final DocumentAcl documentAcl;
+
+    @Transactional
+    public void refreshDocument(Long docId) {
+        accessRepo.lockDocument(docId);
+        accessRepo.refreshDocument(docId);
+        afterCommit(() -> documentAcl.evict(docId));
+    }
+
+    @Transactional
+    public void refreshUsers(Collection<String> usernames) {
+        if(usernames.isEmpty()) return;
+        for(String username : usernames){
+            accessRepo.refreshUser(username);
+        }
+        afterCommit(documentAcl::evictAll);
+    }
+
+    @Transactional
+    public int rebuild() {
+        accessRepo.deleteAllRows();
+        int rows = accessRepo.insertAll();
+        afterCommit(documentAcl::evictAll);
+        return rows;
+    }
+
+    /** Lần chạy đầu sau khi có bảng document_access: tính từ dữ liệu chia sẻ sẵn có. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if(!accessRepo.hasRows() && docRepo.count() > 0){
+            int rows = rebuild();
+            log.info("Built document_access with {} rows", rows);
+        }
+    }
+
+    // xóa cache ACL sau commit để request khác không nạp lại trạng thái cũ trước khi transaction xong
+    private static void afterCommit(Runnable action) {
+        if(TransactionSynchronizationManager.isSynchronizationActive()){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.doc_manager.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Metric cho upload/download. Tag chỉ nhận vài giá trị cố định (loại file, đường upload, nguồn đọc)
+ * để số time series không tăng theo user hay document.
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Upload đi qua app: thời gian từ lúc nhận file (đã nằm trên đĩa tạm) tới khi lưu xong.
+     * @param path multipart, batch hoặc direct (client upload thẳng lên MinIO, không có thời gian)
+     */
+    public void uploaded(Timer.Sample sample, String path, String filename, long bytes, boolean success) {
+        String type = ScanService.fileType(filename);
+        if(sample != null){
+            sample.stop(Timer.builder("document.upload")
+                    .tag("path", path)
+                    .tag("type", type)
+                    .tag("outcome", success ? "success" : "error")
+                    .register(meterRegistry));
+        }
+        if(success){
+            DistributionSummary.builder("document.upload.bytes")
+                    .baseUnit("bytes")
+                    .tag("path", path)
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .record(bytes);
+        }
+    }
+
+    /** @param source cache, minio hoặc zip */
+    public void downloaded(String source, long bytes) {
+        DistributionSummary.builder("document.download.bytes")
+                .baseUnit("bytes")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+}
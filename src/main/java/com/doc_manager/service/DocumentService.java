@@ -0,0 +1,381 @@
+package com.doc_manager.service;
+
+import com.doc_manager.detector.PiiDetector;
+import com.doc_manager.model.ContentBlob;
+import com.doc_manager.model.Document;
+import com.doc_manager.repository.ContentBlobRepository;
+import com.doc_manager.repository.DocumentBatchRepository;
+import com.doc_manager.repository.DocumentBatchRepository.DeletedDocument;
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.repository.RoleRepository;
+import com.doc_manager.repository.UserGroupRepository;
+import com.doc_manager.repository.UserRepository;
+import com.doc_manager.request.UploadInitRequest;
+import com.doc_manager.response.GrantResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Các bước dùng chung cho mọi đường upload (multipart qua app, presigned trực tiếp lên MinIO).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentService {
+
+    private final DocumentRepository docRepo;
+    private final UserRepository userRepo;
+    private final ContentBlobRepository blobRepo;
+    private final MinioService minioService;
+    private final ScanJobService scanJobService;
+    private final RoleRepository roleRepo;
+    private final UserGroupRepository groupRepo;
+    private final DocumentAccessService accessService;
+    private final SearchIndexService searchIndex;
+    private final DocumentBatchRepository batchRepo;
+    private final PiiDetector piiDetector;
+    private final FindingService findingService;
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    public static boolean isSupportedFile(String filename) {
+        if(filename == null) return false;
+        String lower = filename.toLowerCase();
+        return lower.endsWith(".pdf") || lower.endsWith(".docx");
+    }
+
+    public static String newObjectName(String filename) {
+        return UUID.randomUUID()+"-"+filename;
+    }
+
+    /** SHA-256 dạng hex, đọc stream theo buffer nên không giữ cả file trên heap. */
+    public static String sha256(InputStream stream) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try(DigestInputStream in = new DigestInputStream(stream, digest)){
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Lưu nội dung theo hash: nếu đã có blob cùng nội dung thì chỉ tăng ref_count, không upload lại.
+     * Trả về object name của blob dùng chung; caller gán vào document cùng {@code contentHash}.
+     */
+    public String storeContent(String contentHash, String filename, long size, String contentType,
+                               InputStreamSource source) throws Exception {
+        Optional<String> existing = blobRepo.acquireExisting(contentHash);
+        if(existing.isPresent()){
+            log.debug("Upload {} deduplicated to {}", filename, existing.get());
+            return existing.get();
+        }
+
+        String objectName = newObjectName(filename);
+        try(InputStream is = source.getInputStream()){
+            minioService.putFile(objectName, is, size, contentType);
+        }
+        String winner = blobRepo.upsert(contentHash, objectName, size, Instant.now());
+        if(!winner.equals(objectName)){
+            // upload khác cùng nội dung ghi blob trước trong lúc ta đang upload
+            try { minioService.removeFile(objectName); }
+            catch(Exception e){ log.warn("Failed to remove duplicate object {}", objectName, e); }
+        }
+        return winner;
+    }
+
+    /**
+     * Xóa document theo kiểu tombstone: chỉ đánh dấu và gỡ quyền/index trong một transaction ngắn,
+     * không gọi MinIO. Dòng và file được {@link StorageCollector} dọn sau. Trả về id đã đánh dấu.
+     */
+    @Transactional
+    public List<Long> markDeleted(Collection<Long> docIds) {
+        return batchRepo.markDeleted(docIds, Instant.now());
+    }
+
+    /**
+     * Xóa hẳn một lô document đã tombstone: một câu DELETE cho mỗi bảng, blob dùng chung được trừ
+     * ref_count theo hash, object không còn ai tham chiếu được xếp vào hàng đợi xóa cùng transaction.
+     * Trả về số document đã xóa.
+     */
+    @Transactional
+    public int purgeTombstones(int limit) {
+        List<DeletedDocument> deleted = batchRepo.deleteDocuments(batchRepo.lockTombstones(limit));
+        List<String> unreferenced = new ArrayList<>();
+        Map<String, Integer> refsByHash = new HashMap<>();
+        for(DeletedDocument doc : deleted){
+            if(doc.contentHash() == null) unreferenced.add(doc.objectName());
+            else refsByHash.merge(doc.contentHash(), 1, Integer::sum);
+        }
+        unreferenced.addAll(batchRepo.releaseBlobs(refsByHash));
+        batchRepo.enqueueBlobDeletions(unreferenced, Instant.now());
+        return deleted.size();
+    }
+
+    /**
+     * Bù trừ khi không ghi được document sau {@link #storeContent}: bỏ tham chiếu đã lấy,
+     * object không còn ai dùng được xếp vào hàng đợi xóa.
+     */
+    @Transactional
+    public void discardContent(Collection<String> contentHashes) {
+        Map<String, Integer> refsByHash = new HashMap<>();
+        for(String hash : contentHashes){
+            refsByHash.merge(hash, 1, Integer::sum);
+        }
+        batchRepo.enqueueBlobDeletions(batchRepo.releaseBlobs(refsByHash), Instant.now());
+    }
+
+    /**
+     * Thêm quyền xem cho các email bằng INSERT ... SELECT theo lô, không load entity User.
+     */
+    @Transactional
+    public GrantResult grant(Long docId, Collection<String> emails) {
+        List<String> requested = normalize(emails);
+        int changed = 0;
+        for(List<String> chunk : chunks(requested)){
+            changed += docRepo.insertGrants(docId, chunk);
+        }
+        accessService.refreshDocument(docId);
+        return new GrantResult(changed, unresolvedEmails(requested));
+    }
+
+    @Transactional
+    public GrantResult revoke(Long docId, Collection<String> emails) {
+        List<String> requested = normalize(emails);
+        int changed = 0;
+        for(List<String> chunk : chunks(requested)){
+            changed += docRepo.deleteGrants(docId, chunk);
+        }
+        accessService.refreshDocument(docId);
+        return new GrantResult(changed, unresolvedEmails(requested));
+    }
+
+    /**
+     * Đặt lại danh sách chia sẻ (PUT): chỉ thêm/xóa phần chênh lệch thay vì ghi lại cả bảng nối.
+     */
+    @Transactional
+    public GrantResult replaceGrants(Long docId, Collection<String> emails) {
+        List<String> requested = normalize(emails);
+        Set<String> current = new HashSet<>(docRepo.findGrantedEmails(docId));
+        Set<String> wanted = new HashSet<>(requested);
+        List<String> toAdd = requested.stream().filter(e -> !current.contains(e)).toList();
+        List<String> toRemove = current.stream().filter(e -> !wanted.contains(e)).toList();
+
+        int changed = 0;
+        for(List<String> chunk : chunks(toAdd)){
+            changed += docRepo.insertGrants(docId, chunk);
+        }
+        for(List<String> chunk : chunks(toRemove)){
+            changed += docRepo.deleteGrants(docId, chunk);
+        }
+        accessService.refreshDocument(docId);
+        return new GrantResult(changed, unresolvedEmails(requested));
+    }
+
+    /**
+     * Chia sẻ với cả role: mọi user có role đó (hiện tại và sau này) được xem.
+     */
+    @Transactional
+    public GrantResult grantRoles(Long docId, Collection<String> roleNames) {
+        List<String> requested = normalize(roleNames);
+        int changed = 0;
+        for(List<String> chunk : chunks(requested)){
+            changed += docRepo.insertRoleGrants(docId, chunk);
+        }
+        accessService.refreshDocument(docId);
+        return new GrantResult(changed, missing(requested, roleRepo::findExistingNames));
+    }
+
+    @Transactional
+    public GrantResult revokeRoles(Long docId, Collection<String> roleNames) {
+        List<String> requested = normalize(roleNames);
+        int changed = 0;
+        for(List<String> chunk : chunks(requested)){
+            changed += docRepo.deleteRoleGrants(docId, chunk);
+        }
+        accessService.refreshDocument(docId);
+        return new GrantResult(changed, missing(requested, roleRepo::findExistingNames));
+    }
+
+    @Transactional
+    public GrantResult grantGroups(Long docId, Collection<String> groupNames) {
+        List<String> requested = normalize(groupNames);
+        int changed = 0;
+        for(List<String> chunk : chunks(requested)){
+            changed += docRepo.insertGroupGrants(docId, chunk);
+        }
+        accessService.refreshDocument(docId);
+        return new GrantResult(changed, missing(requested, groupRepo::findExistingNames));
+    }
+
+    @Transactional
+    public GrantResult revokeGroups(Long docId, Collection<String> groupNames) {
+        List<String> requested = normalize(groupNames);
+        int changed = 0;
+        for(List<String> chunk : chunks(requested)){
+            changed += docRepo.deleteGroupGrants(docId, chunk);
+        }
+        accessService.refreshDocument(docId);
+        return new GrantResult(changed, missing(requested, groupRepo::findExistingNames));
+    }
+
+    List<String> unresolvedEmails(List<String> requested) {
+        return missing(requested, userRepo::findExistingEmails);
+    }
+
+    /** Các giá trị được yêu cầu nhưng không có trong DB, tra theo lô. */
+    static List<String> missing(List<String> requested, Function<List<String>, List<String>> existing) {
+        Set<String> found = new HashSet<>();
+        for(List<String> chunk : chunks(requested)){
+            found.addAll(existing.apply(chunk));
+        }
+        return requested.stream().filter(e -> !found.contains(e)).toList();
+    }
+
+    static List<String> normalize(Collection<String> values) {
+        if(values == null) return List.of();
+        Set<String> unique = new LinkedHashSet<>();
+        for(String value : values){
+            if(value != null && !value.isBlank()) unique.add(value.trim());
+        }
+        return new ArrayList<>(unique);
+    }
+
+    /** Chia danh sách IN để số bind parameter mỗi câu lệnh luôn nhỏ. */
+    static List<List<String>> chunks(List<String> values) {
+        List<List<String>> chunks = new ArrayList<>();
+        for(int i = 0; i < values.size(); i += IN_CHUNK_SIZE){
+            chunks.add(values.subList(i, Math.min(values.size(), i + IN_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Tạo document PENDING_UPLOAD cho các đường upload trực tiếp lên MinIO (presigned, nhiều phần).
+     * Document chỉ được scan sau khi object đã được xác nhận.
+     */
+    @Transactional
+    public Document createPending(UploadInitRequest request, String objectName, String username) {
+        Document doc = Document.builder()
+                .objectName(objectName)
+                .filename(request.getFilename())
+                .title(request.getTitle())
+                .description(request.getDescription())
+                .size(request.getSize())
+                .uploadedBy(username)
+                .uploadedAt(Instant.now())
+                .status("PENDING_UPLOAD")
+                .build();
+        docRepo.save(doc);
+        GrantResult grants = grant(doc.getId(), request.getAllowedUserEmails());
+        if(!grants.unresolved().isEmpty())
+            log.info("Document {}: no user for emails {}", doc.getId(), grants.unresolved());
+        return doc;
+    }
+
+    /**
+     * Chuyển document PENDING_UPLOAD sang UPLOADED và đăng ký scan. Điều kiện đặt trên trạng thái nên khi
+     * hai request complete chạy cùng lúc chỉ một cái đăng ký; trả về empty nếu document đã rời PENDING_UPLOAD.
+     */
+    @Transactional
+    public Optional<Document> completePending(Long docId, long size) {
+        if(docRepo.transitionStatus(docId, "PENDING_UPLOAD", "UPLOADED") == 0) return Optional.empty();
+        Document doc = docRepo.findById(docId).orElseThrow();
+        doc.setSize(size);
+        doc.setUploadedAt(Instant.now());
+        doc.setStatus("UPLOADED");
+        return Optional.of(register(doc));
+    }
+
+    /**
+     * Bỏ document PENDING_UPLOAD (client hủy, upload bị bỏ dở, file bị từ chối): đặt {@code status}, tombstone
+     * và xếp object vào hàng đợi xóa trong cùng transaction. Document đã rời PENDING_UPLOAD thì giữ nguyên.
+     */
+    @Transactional
+    public boolean discardPending(Document doc, String status) {
+        if(docRepo.transitionStatus(doc.getId(), "PENDING_UPLOAD", status) == 0) return false;
+        markDeleted(List.of(doc.getId()));
+        batchRepo.enqueueBlobDeletions(List.of(doc.getObjectName()), Instant.now());
+        return true;
+    }
+
+    /** Xếp các object không gắn với document nào (phần upload tạm) vào hàng đợi xóa. */
+    @Transactional
+    public void discardObjects(Collection<String> objectNames) {
+        batchRepo.enqueueBlobDeletions(objectNames, Instant.now());
+    }
+
+    /**
+     * Như {@link #register(Document)} cho nhiều document: insert document và scan job bằng JDBC batch,
+     * chia sẻ cùng danh sách email cho tất cả. Trả về các email không có user.
+     */
+    @Transactional
+    public List<String> registerBatch(List<Document> docs, Collection<String> emails) {
+        Set<String> hashes = docs.stream().map(Document::getContentHash).filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        String version = piiDetector.rulesetVersion();
+        Map<String, String> cachedLabels = new HashMap<>();
+        for(ContentBlob blob : blobRepo.findAllById(hashes)){
+            if(blob.getLabelsJson() != null && version.equals(blob.getRulesetVersion()))
+                cachedLabels.put(blob.getSha256(), blob.getLabelsJson());
+        }
+        for(Document doc : docs){
+            String labels = doc.getContentHash() == null ? null : cachedLabels.get(doc.getContentHash());
+            if(labels != null) ScanService.applyLabels(doc, labels, version);
+        }
+
+        batchRepo.insertDocuments(docs);
+        List<Long> toScan = new ArrayList<>();
+        for(Document doc : docs){
+            if("UPLOADED".equals(doc.getStatus())) toScan.add(doc.getId());
+            else {
+                searchIndex.indexFromSameContent(doc);
+                findingService.reuse(doc);
+            }
+        }
+        batchRepo.insertScanJobs(toScan);
+
+        List<String> requested = normalize(emails);
+        List<Long> ids = docs.stream().map(Document::getId).toList();
+        for(List<String> chunk : chunks(requested)){
+            batchRepo.insertGrants(ids, chunk);
+        }
+        for(Long id : ids){
+            accessService.refreshDocument(id);
+        }
+        return unresolvedEmails(requested);
+    }
+
+    /**
+     * Lưu document đã có object trên MinIO và tạo scan job trong cùng transaction,
+     * nên document không bao giờ bị kẹt ở UPLOADED nếu node chết ngay sau khi upload.
+     */
+    @Transactional
+    public Document register(Document doc) {
+        String version = piiDetector.rulesetVersion();
+        String cachedLabels = doc.getContentHash() == null ? null : blobRepo.findById(doc.getContentHash())
+                .filter(blob -> version.equals(blob.getRulesetVersion()))
+                .map(ContentBlob::getLabelsJson).orElse(null);
+        if(cachedLabels != null){
+            // cùng nội dung đã được scan bằng bộ luật hiện tại: dùng lại kết quả, không cần job
+            ScanService.applyLabels(doc, cachedLabels, version);
+            docRepo.save(doc);
+            searchIndex.indexFromSameContent(doc);
+            findingService.reuse(doc);
+            return doc;
+        }
+        docRepo.save(doc);
+        scanJobService.enqueue(doc.getId());
+        return doc;
+    }
+}
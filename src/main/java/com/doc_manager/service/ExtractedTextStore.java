@@ -0,0 +1,124 @@
+package com.doc_manager.service;
+
+import com.doc_manager.extraction.TextSink;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Văn bản đã trích xuất của mỗi object, nén gzip trên MinIO tại {@code text/{objectName}.txt.gz}.
+ * Khi bộ luật PII đổi, scan lại đọc văn bản này thay vì tải file gốc và parse lại bằng Tika.
+ * Object gốc không đổi nên văn bản cũng không đổi; được dọn cùng object gốc.
+ */
+@Slf4j
+@Service
+public class ExtractedTextStore {
+
+    public static final String PREFIX = "text/";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final MinioService minioService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.scan.text-store.enabled}") private boolean enabled;
+
+    public ExtractedTextStore(MinioService minioService, MeterRegistry meterRegistry) {
+        this.minioService = minioService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public static String objectName(String source) {
+        return PREFIX + source + ".txt.gz";
+    }
+
+    /** Sink ghi văn bản ra file tạm nén gzip; null khi tắt lưu văn bản. */
+    public Capture capture() throws IOException {
+        return enabled ? new Capture(Files.createTempFile("text-", ".txt.gz")) : null;
+    }
+
+    /**
+     * Đẩy văn bản đã lưu của {@code source} vào sink theo từng mảnh.
+     * @return false nếu chưa có văn bản đã lưu
+     */
+    public boolean replay(String source, TextSink sink) throws Exception {
+        if(!enabled) return false;
+        InputStream stream;
+        try {
+            stream = minioService.getFileStream(objectName(source));
+        } catch(Exception e){
+            if(MinioService.isNotFound(e)) return false;
+            throw e;
+        }
+        try(Reader reader = new InputStreamReader(new GZIPInputStream(stream, BUFFER_SIZE), StandardCharsets.UTF_8)){
+            char[] buffer = new char[8192];
+            int n;
+            while((n = reader.read(buffer)) != -1) sink.write(buffer, 0, n);
+        }
+        return true;
+    }
+
+    /**
+     * Lỗi ghi file tạm không làm hỏng lần scan: capture chỉ bỏ qua việc lưu.
+     * Luôn gọi {@link #close()} để xóa file tạm.
+     */
+    public final class Capture implements TextSink, Closeable {
+
+        private final Path file;
+        private final Writer writer;
+        private boolean failed;
+
+        private Capture(Path file) throws IOException {
+            this.file = file;
+            this.writer = new OutputStreamWriter(new GZIPOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE), BUFFER_SIZE),
+                    StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(char[] ch, int start, int length) {
+            if(failed) return;
+            try {
+                writer.write(ch, start, length);
+            } catch(IOException e){
+                failed = true;
+                log.warn("Capturing extracted text to {} failed", file, e);
+            }
+        }
+
+        /** Lưu văn bản đã nhận lên MinIO; lỗi chỉ được ghi log. */
+        public void store(String source) {
+            try {
+                writer.close();
+                if(failed) return;
+                long size = Files.size(file);
+                try(InputStream is = Files.newInputStream(file)){
+                    minioService.putFile(objectName(source), is, size, "application/gzip");
+                }
+                meterRegistry.summary("scan.text.stored.bytes").record(size);
+            } catch(Exception e){
+                log.warn("Storing extracted text of {} failed", source, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch(IOException ignored){
+            }
+            try {
+                Files.deleteIfExists(file);
+            } catch(IOException e){
+                log.debug("Cannot delete {}", file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.doc_manager.service;
+
+import com.doc_manager.detector.DetectionResult;
+import com.doc_manager.detector.Finding;
+import com.doc_manager.model.Document;
+import com.doc_manager.model.DocumentFinding;
+import com.doc_manager.repository.DocumentBatchRepository;
+import com.doc_manager.repository.DocumentFindingRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.*;
+
+/**
+ * Ghi kết quả scan vào document_findings để thống kê bằng SQL. Giá trị PII không được lưu:
+ * chỉ HMAC của giá trị đã chuẩn hóa, đủ để đếm giá trị khác nhau và tìm document chứa một giá trị cho trước.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FindingService {
+
+    private final DocumentBatchRepository batchRepo;
+    private final DocumentFindingRepository findingRepo;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${app.findings.hash-key}") private String hashKey;
+
+    /** Thay finding của document bằng kết quả scan mới. */
+    @Transactional
+    public void record(Long docId, DetectionResult result) {
+        Mac mac = newMac();
+        Map<String, DocumentFinding> rows = new LinkedHashMap<>();
+        for(Finding finding : result.findings()){
+            String valueHash = hash(mac, finding.value());
+            // hai cách viết của cùng một giá trị ("0912-345", "0912 345") gộp thành một dòng
+            rows.merge(finding.type() + ":" + valueHash,
+                    new DocumentFinding(docId, finding.type(), valueHash, finding.occurrences(), null),
+                    (a, b) -> { a.setOccurrences(a.getOccurrences() + b.getOccurrences()); return a; });
+        }
+        batchRepo.replaceFindings(docId, List.copyOf(rows.values()));
+    }
+
+    /**
+     * Document nhận lại nhãn của bản khác cùng nội dung: chép finding của bản đó, nếu không còn thì
+     * dựng lại từ labelsJson (số lần xuất hiện không có trong nhãn nên tính là 1).
+     */
+    @Transactional
+    public void reuse(Document doc) {
+        findingRepo.deleteByDocumentId(doc.getId());
+        if(doc.getContentHash() != null
+                && findingRepo.copyFromSameContent(doc.getId(), doc.getContentHash(), doc.getRulesetVersion()) > 0)
+            return;
+        List<String> labels;
+        try {
+            labels = doc.getLabelsJson() == null ? List.of()
+                    : objectMapper.readValue(doc.getLabelsJson(), new TypeReference<List<String>>() {});
+        } catch(Exception e){
+            log.warn("Document {}: unreadable labels, findings not recorded", doc.getId(), e);
+            return;
+        }
+        Mac mac = newMac();
+        Map<String, DocumentFinding> rows = new LinkedHashMap<>();
+        for(String label : labels){
+            int colon = label.indexOf(':');
+            if(colon <= 0) continue;
+            String type = label.substring(0, colon);
+            String valueHash = hash(mac, label.substring(colon + 1));
+            rows.putIfAbsent(type + ":" + valueHash, new DocumentFinding(doc.getId(), type, valueHash, 1, null));
+        }
+        batchRepo.replaceFindings(doc.getId(), List.copyOf(rows.values()));
+    }
+
+    /** Hash của một giá trị như được lưu trong document_findings, để tra cứu theo giá trị. */
+    public String hash(String value) {
+        return hash(newMac(), value);
+    }
+
+    private static String hash(Mac mac, String value) {
+        return HexFormat.of().formatHex(mac.doFinal(normalize(value).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Bỏ khoảng trắng, gạch nối và phân biệt hoa/thường để cùng một số/email chỉ có một hash. */
+    static String normalize(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if(!Character.isWhitespace(c) && c != '-') sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    // Mac không thread-safe: mỗi lần ghi một instance
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(hashKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return mac;
+        } catch(GeneralSecurityException e){
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
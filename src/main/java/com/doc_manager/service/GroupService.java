@@ -0,0 +1,73 @@
+package com.doc_manager.service;
+
+import com.doc_manager.entity.UserGroup;
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.repository.UserGroupRepository;
+import com.doc_manager.repository.UserRepository;
+import com.doc_manager.response.GrantResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Quản lý nhóm và thành viên. Mọi thay đổi thành viên tính lại document_access của đúng các user bị ảnh hưởng.
+ */
+@Service
+@RequiredArgsConstructor
+public class GroupService {
+
+    private final UserGroupRepository groupRepo;
+    private final UserRepository userRepo;
+    private final DocumentRepository docRepo;
+    private final DocumentService documentService;
+    private final DocumentAccessService accessService;
+
+    public UserGroup create(String name) {
+        UserGroup group = new UserGroup();
+        group.setName(name.trim());
+        return groupRepo.save(group);
+    }
+
+    @Transactional
+    public void delete(UserGroup group) {
+        List<String> members = groupRepo.findMemberUsernames(group.getId());
+        docRepo.deleteGroupGrantsByGroup(group.getId());
+        groupRepo.delete(group);
+        groupRepo.flush();
+        accessService.refreshUsers(members);
+    }
+
+    @Transactional
+    public GrantResult addMembers(UserGroup group, Collection<String> emails) {
+        List<String> requested = DocumentService.normalize(emails);
+        int changed = 0;
+        for(List<String> chunk : DocumentService.chunks(requested)){
+            changed += groupRepo.insertMembers(group.getId(), chunk);
+        }
+        accessService.refreshUsers(usernames(requested));
+        return new GrantResult(changed, documentService.unresolvedEmails(requested));
+    }
+
+    @Transactional
+    public GrantResult removeMembers(UserGroup group, Collection<String> emails) {
+        List<String> requested = DocumentService.normalize(emails);
+        int changed = 0;
+        for(List<String> chunk : DocumentService.chunks(requested)){
+            changed += groupRepo.deleteMembers(group.getId(), chunk);
+        }
+        accessService.refreshUsers(usernames(requested));
+        return new GrantResult(changed, documentService.unresolvedEmails(requested));
+    }
+
+    private List<String> usernames(List<String> emails) {
+        List<String> usernames = new ArrayList<>();
+        for(List<String> chunk : DocumentService.chunks(emails)){
+            usernames.addAll(userRepo.findUsernamesByEmails(chunk));
+        }
+        return usernames;
+    }
+}
@@ -1,19 +1,32 @@
 package com.doc_manager.service;
 
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 public class MinioService {
 
+    private final MeterRegistry meterRegistry;
     private MinioClient minioClient;
 
     @Value("${app.minio.url}") private String url;
@@ -33,31 +46,98 @@ public class MinioService {
         }
     }
 
-    public void putFile(String objectName, InputStream stream, long size, String contentType) throws Exception {
-        minioClient.putObject(
+    public ObjectWriteResponse putFile(String objectName, InputStream stream, long size, String contentType) throws Exception {
+        return timed("put", () -> minioClient.putObject(
                 PutObjectArgs.builder()
                         .bucket(bucket)
                         .object(objectName)
                         .stream(stream, size, -1)
                         .contentType(contentType)
                         .build()
-        );
+        ));
     }
 
     public InputStream getFileStream(String objectName) throws Exception {
-        return minioClient.getObject(GetObjectArgs.builder()
+        return timed("get", () -> minioClient.getObject(GetObjectArgs.builder()
                 .bucket(bucket)
                 .object(objectName)
-                .build());
+                .build()));
     }
 
-    public void removeFile(String objectName) throws Exception {
-        minioClient.removeObject(RemoveObjectArgs.builder()
+    public InputStream getFileStream(String objectName, long offset, long length) throws Exception {
+        return timed("get_range", () -> minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectName)
+                .offset(offset)
+                .length(length)
+                .build()));
+    }
+
+    public StatObjectResponse statFile(String objectName) throws Exception {
+        return timed("stat", () -> minioClient.statObject(StatObjectArgs.builder()
                 .bucket(bucket)
                 .object(objectName)
+                .build()));
+    }
+
+    public void removeFile(String objectName) throws Exception {
+        timed("remove", () -> {
+            minioClient.removeObject(RemoveObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(objectName)
+                    .build());
+            return null;
+        });
+    }
+
+    /**
+     * Xóa nhiều object trong một request (S3 multi-object delete).
+     * Trả về tên các object xóa thất bại.
+     */
+    public List<String> removeFiles(Collection<String> objectNames) throws Exception {
+        List<String> failed = new ArrayList<>();
+        if(objectNames.isEmpty()) return failed;
+        List<DeleteObject> objects = objectNames.stream().map(DeleteObject::new).toList();
+        return timed("remove_batch", () -> {
+            Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder()
+                    .bucket(bucket)
+                    .objects(objects)
+                    .build());
+            // removeObjects chỉ thực sự gửi request khi duyệt kết quả
+            for(Result<DeleteError> result : results){
+                failed.add(result.get().objectName());
+            }
+            return failed;
+        });
+    }
+
+    /**
+     * Liệt kê mọi object trong bucket theo thứ tự byte UTF-8 của tên (thứ tự của S3 ListObjects).
+     * Kết quả được tải theo từng trang khi duyệt.
+     */
+    public Iterable<Result<Item>> listFiles() {
+        return minioClient.listObjects(ListObjectsArgs.builder()
+                .bucket(bucket)
+                .recursive(true)
                 .build());
     }
 
+    /**
+     * Ghép các object nguồn (theo thứ tự) thành một object bằng S3 multipart copy phía server.
+     * Mọi nguồn trừ nguồn cuối phải có kích thước tối thiểu 5 MiB.
+     */
+    public void composeFile(String objectName, List<String> sourceObjectNames, String contentType) throws Exception {
+        List<ComposeSource> sources = sourceObjectNames.stream()
+                .map(source -> ComposeSource.builder().bucket(bucket).object(source).build())
+                .toList();
+        timed("compose", () -> minioClient.composeObject(ComposeObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectName)
+                .sources(sources)
+                .headers(Map.of("Content-Type", contentType))
+                .build()));
+    }
+
     public String getPresignedUrl(String objectName, int expireMinutes) throws Exception {
         return minioClient.getPresignedObjectUrl(
                 GetPresignedObjectUrlArgs.builder()
@@ -68,4 +148,46 @@ public class MinioService {
                         .build()
         );
     }
+
+    /**
+     * Form data cho POST policy: client upload thẳng lên MinIO, policy ràng buộc đúng object key,
+     * content type và kích thước tối đa nên không thể dùng URL này để ghi file khác.
+     */
+    public Map<String, String> getPresignedPostFormData(String objectName, String contentType,
+                                                        long maxSize, int expireMinutes) throws Exception {
+        PostPolicy policy = new PostPolicy(bucket, ZonedDateTime.now().plusMinutes(expireMinutes));
+        policy.addEqualsCondition("key", objectName);
+        policy.addEqualsCondition("Content-Type", contentType);
+        policy.addContentLengthRangeCondition(1, maxSize);
+        return minioClient.getPresignedPostFormData(policy);
+    }
+
+    /** Lỗi do object không tồn tại (stat/get trên key chưa có). */
+    public static boolean isNotFound(Exception e) {
+        return e instanceof ErrorResponseException error && "NoSuchKey".equals(error.errorResponse().code());
+    }
+
+    /**
+     * Đo thời gian mỗi lời gọi MinIO theo loại thao tác. Với get, thời gian tính tới khi nhận header
+     * (time to first byte); phần đọc body được tính vào request đang stream.
+     */
+    private <T> T timed(String operation, Callable<T> call) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return call.call();
+        } catch(Exception e){
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("minio.requests")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    public String getBucketUrl() {
+        return url.replaceAll("/+$", "") + "/" + bucket;
+    }
 }
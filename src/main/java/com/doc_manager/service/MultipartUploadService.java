@@ -0,0 +1,204 @@
+package com.doc_manager.service;
+
+import com.doc_manager.model.Document;
+import com.doc_manager.model.UploadPart;
+import com.doc_manager.model.UploadSession;
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.repository.UploadPartRepository;
+import com.doc_manager.repository.UploadSessionRepository;
+import com.doc_manager.request.UploadInitRequest;
+import io.minio.ObjectWriteResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Upload nhiều phần, có thể tiếp tục sau khi mất kết nối.
+ *
+ * Mỗi phần được ghi thành object tạm {@code uploads/<uploadId>/<partNumber>} nên client có thể
+ * gửi song song nhiều phần và chỉ gửi lại phần bị lỗi. Khi complete, các phần được ghép bằng
+ * compose (S3 UploadPartCopy phía server) nên dữ liệu không đi qua app lần thứ hai.
+ * Complete/abort chuyển trạng thái phiên có điều kiện trong một transaction nên chỉ một request thắng;
+ * object không còn dùng được xếp vào hàng đợi xóa thay vì xóa trực tiếp.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MultipartUploadService {
+
+    /** Giới hạn của S3: mọi phần trừ phần cuối phải từ 5 MiB trở lên. */
+    public static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    private final UploadSessionRepository sessionRepo;
+    private final UploadPartRepository partRepo;
+    private final DocumentRepository docRepo;
+    private final DocumentService documentService;
+    private final MinioService minioService;
+    private final DocumentMetrics documentMetrics;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.upload.part-size-bytes}") private long partSize;
+    @Value("${app.upload.session-ttl-minutes}") private long sessionTtlMinutes;
+
+    public UploadSession init(UploadInitRequest request, String username) {
+        long effectivePartSize = Math.max(partSize, MIN_PART_SIZE);
+        int partCount = (int) Math.max(1, (request.getSize() + effectivePartSize - 1) / effectivePartSize);
+
+        Document doc = documentService.createPending(request, DocumentService.newObjectName(request.getFilename()), username);
+
+        Instant now = Instant.now();
+        UploadSession session = UploadSession.builder()
+                .id(UUID.randomUUID().toString())
+                .documentId(doc.getId())
+                .objectName(doc.getObjectName())
+                .contentType(request.getContentType())
+                .uploadedBy(username)
+                .totalSize(request.getSize())
+                .partSize(effectivePartSize)
+                .partCount(partCount)
+                .status("IN_PROGRESS")
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        return sessionRepo.save(session);
+    }
+
+    /** Kích thước bắt buộc của phần {@code partNumber} (1-based). */
+    public long expectedPartSize(UploadSession session, int partNumber) {
+        if(partNumber < session.getPartCount()) return session.getPartSize();
+        return session.getTotalSize() - session.getPartSize() * (session.getPartCount() - 1);
+    }
+
+    /**
+     * Ghi (hoặc ghi đè khi client gửi lại) một phần. Dữ liệu được stream thẳng sang MinIO.
+     */
+    public UploadPart uploadPart(UploadSession session, int partNumber, InputStream stream, long size) throws Exception {
+        ObjectWriteResponse written = minioService.putFile(
+                partObjectName(session.getId(), partNumber), stream, size, "application/octet-stream");
+
+        UploadPart part = partRepo.findByUploadIdAndPartNumber(session.getId(), partNumber)
+                .orElseGet(() -> UploadPart.builder().uploadId(session.getId()).partNumber(partNumber).build());
+        part.setSize(size);
+        part.setEtag(written.etag());
+        part.setUploadedAt(Instant.now());
+        partRepo.save(part);
+
+        // không save cả entity: sẽ ghi đè trạng thái nếu phiên vừa được complete/abort
+        if(sessionRepo.transitionStatus(session.getId(), "IN_PROGRESS", "IN_PROGRESS", Instant.now()) == 0){
+            documentService.discardObjects(List.of(partObjectName(session.getId(), partNumber)));
+            throw new IllegalStateException("Upload " + session.getId() + " has already ended");
+        }
+        return part;
+    }
+
+    public List<UploadPart> listParts(String uploadId) {
+        return partRepo.findByUploadIdOrderByPartNumber(uploadId);
+    }
+
+    /**
+     * Ghép các phần thành object cuối cùng và chuyển document sang UPLOADED.
+     * Caller phải kiểm tra đủ phần trước (xem {@link #missingParts}).
+     * Gọi lại khi phiên đã COMPLETED trả về document đã đăng ký; empty nếu phiên đã bị hủy.
+     */
+    public Optional<Document> complete(UploadSession session) {
+        // request complete thứ hai chờ khóa dòng phiên tới khi request đầu commit, rồi thấy COMPLETED
+        Optional<Document> completed = transactionTemplate.execute(tx -> {
+            if(sessionRepo.transitionStatus(session.getId(), "IN_PROGRESS", "COMPLETED", Instant.now()) == 0)
+                return Optional.<Document>empty();
+            List<String> partNames = partObjectNames(session.getId());
+            try {
+                minioService.composeFile(session.getObjectName(), partNames, session.getContentType());
+            } catch(Exception e){
+                throw new IllegalStateException("Compose failed for upload " + session.getId(), e);
+            }
+            documentService.discardObjects(partNames);
+            partRepo.deleteByUploadId(session.getId());
+            return Optional.of(documentService.completePending(session.getDocumentId(), session.getTotalSize())
+                    .orElseThrow(() -> new IllegalStateException("Document " + session.getDocumentId() + " is no longer pending")));
+        });
+        if(completed.isPresent()){
+            Document doc = completed.get();
+            documentMetrics.uploaded(null, "resumable", doc.getFilename(), doc.getSize(), true);
+            return completed;
+        }
+        return sessionRepo.findById(session.getId())
+                .filter(s -> "COMPLETED".equals(s.getStatus()))
+                .flatMap(s -> docRepo.findById(s.getDocumentId()));
+    }
+
+    public List<Integer> missingParts(UploadSession session) {
+        List<UploadPart> parts = listParts(session.getId());
+        boolean[] present = new boolean[session.getPartCount() + 1];
+        for(UploadPart part : parts){
+            if(part.getPartNumber() <= session.getPartCount()
+                    && part.getSize() == expectedPartSize(session, part.getPartNumber()))
+                present[part.getPartNumber()] = true;
+        }
+        List<Integer> missing = new ArrayList<>();
+        for(int i = 1; i <= session.getPartCount(); i++){
+            if(!present[i]) missing.add(i);
+        }
+        return missing;
+    }
+
+    /** Hủy phiên và document PENDING_UPLOAD của nó; false nếu phiên đã kết thúc trước đó. */
+    public boolean abort(UploadSession session) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(tx -> {
+            if(sessionRepo.transitionStatus(session.getId(), "IN_PROGRESS", "ABORTED", Instant.now()) == 0)
+                return false;
+            documentService.discardObjects(partObjectNames(session.getId()));
+            partRepo.deleteByUploadId(session.getId());
+            docRepo.findById(session.getDocumentId())
+                    .ifPresent(doc -> documentService.discardPending(doc, "ABORTED"));
+            return true;
+        }));
+    }
+
+    /**
+     * Dọn các upload bị bỏ dở: phiên nhiều phần không có hoạt động quá TTL và document
+     * PENDING_UPLOAD của đường presigned mà client không bao giờ gọi complete.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.sweep-interval-ms}")
+    public void sweepAbandonedUploads() {
+        Instant cutoff = Instant.now().minus(sessionTtlMinutes, ChronoUnit.MINUTES);
+
+        for(UploadSession session : sessionRepo.findByStatusAndUpdatedAtBefore("IN_PROGRESS", cutoff)){
+            try {
+                if(abort(session)) log.info("Aborted abandoned upload {}", session.getId());
+            } catch(Exception e){
+                log.warn("Failed to abort abandoned upload {}", session.getId(), e);
+            }
+        }
+
+        for(Document doc : docRepo.findByStatusAndUploadedAtBefore("PENDING_UPLOAD", cutoff)){
+            if(sessionRepo.existsByDocumentIdAndStatus(doc.getId(), "IN_PROGRESS")) continue;
+            try {
+                if(documentService.discardPending(doc, "ABORTED"))
+                    log.info("Removed abandoned pending document {}", doc.getId());
+            } catch(Exception e){
+                log.warn("Failed to remove abandoned pending document {}", doc.getId(), e);
+            }
+        }
+    }
+
+    private List<String> partObjectNames(String uploadId) {
+        return listParts(uploadId).stream()
+                .map(p -> partObjectName(uploadId, p.getPartNumber()))
+                .toList();
+    }
+
+    public static String partObjectName(String uploadId, int partNumber) {
+        return "uploads/" + uploadId + "/" + String.format("%05d", partNumber);
+    }
+}
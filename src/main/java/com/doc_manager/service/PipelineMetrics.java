@@ -0,0 +1,63 @@
+package com.doc_manager.service;
+
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.repository.ScanJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gauge trạng thái pipeline lấy từ DB: số document theo status, số scan job theo status và độ trễ hàng đợi
+ * (job PENDING đã tới hạn mà chờ lâu nhất). Giá trị được làm mới định kỳ thay vì query mỗi lần scrape,
+ * và giống nhau trên mọi node vì đọc cùng DB.
+ */
+@Slf4j
+@Component
+public class PipelineMetrics {
+
+    private final DocumentRepository docRepo;
+    private final ScanJobRepository jobRepo;
+    private final MultiGauge documents;
+    private final MultiGauge jobs;
+    private final AtomicLong queueLagMillis = new AtomicLong();
+
+    public PipelineMetrics(DocumentRepository docRepo, ScanJobRepository jobRepo, MeterRegistry meterRegistry) {
+        this.docRepo = docRepo;
+        this.jobRepo = jobRepo;
+        this.documents = MultiGauge.builder("documents")
+                .register(meterRegistry);
+        this.jobs = MultiGauge.builder("scan.jobs")
+                .register(meterRegistry);
+        meterRegistry.more().timeGauge("scan.queue.lag", Tags.empty(), queueLagMillis,
+                TimeUnit.MILLISECONDS, AtomicLong::doubleValue);
+    }
+
+    @Scheduled(fixedDelayString = "${app.metrics.refresh-interval-ms}")
+    public void refresh() {
+        try {
+            documents.register(rows(docRepo.countByStatus()), true);
+            jobs.register(rows(jobRepo.countByStatus()), true);
+            Instant now = Instant.now();
+            Instant oldestDue = jobRepo.findOldestDue(now);
+            queueLagMillis.set(oldestDue == null ? 0 : Duration.between(oldestDue, now).toMillis());
+        } catch(RuntimeException e){
+            log.warn("Could not refresh pipeline metrics", e);
+        }
+    }
+
+    private static List<MultiGauge.Row<?>> rows(List<Object[]> counts) {
+        return counts.stream()
+                .<MultiGauge.Row<?>>map(r -> MultiGauge.Row.of(Tags.of("status", String.valueOf(r[0])),
+                        ((Number) r[1]).doubleValue()))
+                .toList();
+    }
+}
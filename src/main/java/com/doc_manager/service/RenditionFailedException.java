@@ -0,0 +1,13 @@
+package com.doc_manager.service;
+
+import java.io.IOException;
+
+/**
+ * Không tạo được rendition do chính nội dung file (hỏng, có mật khẩu, loại không hỗ trợ).
+ * Không thử lại ngay ở các request sau.
+ */
+public class RenditionFailedException extends IOException {
+    public RenditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,377 @@
+package com.doc_manager.service;
+
+import com.doc_manager.extraction.BoundedTextBuffer;
+import com.doc_manager.extraction.ParseFailedException;
+import com.doc_manager.extraction.ParserPool;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.minio.ObjectWriteResponse;
+import io.minio.StatObjectResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Bản xem trước của document, lưu trên MinIO dưới {@code renditions/{objectName}/}: ảnh PNG trang đầu
+ * và bản preview nhẹ (PDF: vài trang đầu; DOCX: đoạn văn bản đầu). Nội dung object gốc không đổi
+ * nên rendition cũng không đổi, ETag của object rendition là ETag mạnh.
+ *
+ * PDF được đọc và render trong {@link ParserPool}, cùng giới hạn thời gian và số luồng như parse của scan.
+ * PDF mã hóa chỉ có thumbnail: bản preview là bản sao trang đầu nên sẽ mất các hạn chế in/sao chép.
+ *
+ * Rendition được tạo khi có request đầu tiên, hoặc sớm hơn sau khi scan xong. Mỗi object gốc chỉ được
+ * render một lần dù nhiều request đến cùng lúc (single-flight trên node); một lần render tạo mọi rendition.
+ */
+@Slf4j
+@Service
+public class RenditionService {
+
+    public static final String PREFIX = "renditions/";
+    private static final String NO_PREVIEW = "Không có bản xem trước";
+    private static final String ENCRYPTED_PDF = "PDF được mã hóa, chỉ có ảnh thu nhỏ";
+
+    public enum Kind { THUMBNAIL, PREVIEW }
+
+    /** Rendition đã lưu; {@code data} khác null khi vừa render xong, ngược lại đọc từ {@code objectName}. */
+    public record Rendition(String objectName, String etag, MediaType contentType, long size, byte[] data) {}
+
+    private final MinioService minioService;
+    private final ParserPool parserPool;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, CompletableFuture<Map<Kind, Rendition>>> inFlight = new ConcurrentHashMap<>();
+    // file lỗi (hỏng, mã hóa...) không render lại ở mỗi request
+    private final Cache<String, String> failures;
+    private final Semaphore permits;
+    private final ThreadPoolExecutor eagerExecutor;
+
+    @Value("${app.rendition.thumbnail-width}") private int thumbnailWidth;
+    @Value("${app.rendition.preview-pages}") private int previewPages;
+    @Value("${app.rendition.preview-chars}") private int previewChars;
+    @Value("${app.rendition.pdf-memory-bytes}") private long pdfMemoryBytes;
+    @Value("${app.rendition.wait-seconds}") private long waitSeconds;
+    @Value("${app.rendition.eager}") private boolean eager;
+
+    public RenditionService(MinioService minioService, ParserPool parserPool, MeterRegistry meterRegistry,
+                            @Value("${app.rendition.max-concurrent}") int maxConcurrent,
+                            @Value("${app.rendition.eager-queue}") int eagerQueue,
+                            @Value("${app.rendition.failure-ttl-seconds}") long failureTtlSeconds) {
+        this.minioService = minioService;
+        this.parserPool = parserPool;
+        this.meterRegistry = meterRegistry;
+        this.permits = new Semaphore(maxConcurrent);
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(failureTtlSeconds))
+                .build();
+        AtomicInteger threadCount = new AtomicInteger();
+        // render sớm là tối ưu, không bắt buộc: hàng đợi đầy thì bỏ, request đầu tiên sẽ render
+        this.eagerExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(eagerQueue), r -> {
+            Thread t = new Thread(r, "rendition-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        meterRegistry.gaugeCollectionSize("rendition.inflight", Tags.empty(), inFlight.keySet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        eagerExecutor.shutdownNow();
+    }
+
+    /** Tên các object rendition của một object gốc, dùng khi dọn file. */
+    public static List<String> objectNames(String objectName) {
+        return List.of(
+                PREFIX + objectName + "/thumbnail.png",
+                PREFIX + objectName + "/preview.pdf",
+                PREFIX + objectName + "/preview.txt");
+    }
+
+    /**
+     * Trả về rendition, render nếu chưa có.
+     * @throws RenditionFailedException khi file không render được (kết quả được nhớ failure-ttl-seconds)
+     */
+    public Rendition get(String objectName, String filename, Kind kind) throws Exception {
+        String name = renditionName(objectName, filename, kind);
+        String failure = failures.getIfPresent(name);
+        if(failure != null) throw new RenditionFailedException(failure);
+        try {
+            StatObjectResponse stat = minioService.statFile(name);
+            return new Rendition(name, stat.etag(), mediaType(name), stat.size(), null);
+        } catch(Exception e){
+            if(!MinioService.isNotFound(e)) throw e;
+        }
+        Rendition rendition = render(objectName, filename).get(kind);
+        if(rendition == null) throw new RenditionFailedException(failures.asMap().getOrDefault(name, NO_PREVIEW));
+        return rendition;
+    }
+
+    /** Gọi sau khi scan xong: render nền nếu chưa có, không chặn thread scan. */
+    public void renderLater(String objectName, String filename) {
+        if(!eager || !isSupported(filename)) return;
+        eagerExecutor.execute(() -> {
+            try {
+                get(objectName, filename, Kind.THUMBNAIL);
+            } catch(RenditionFailedException e){
+                log.info("No rendition for {}: {}", objectName, e.getMessage());
+            } catch(Exception e){
+                log.warn("Eager rendition of {} failed", objectName, e);
+            }
+        });
+    }
+
+    public static boolean isSupported(String filename) {
+        String type = ScanService.fileType(filename);
+        return type.equals("pdf") || type.equals("docx");
+    }
+
+    private Map<Kind, Rendition> render(String objectName, String filename) throws Exception {
+        String failure = failures.getIfPresent(objectName);
+        if(failure != null) throw new RenditionFailedException(failure);
+
+        CompletableFuture<Map<Kind, Rendition>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<Kind, Rendition>> running = inFlight.putIfAbsent(objectName, mine);
+        if(running != null){
+            meterRegistry.counter("rendition.singleflight.joined").increment();
+            try {
+                return running.get(waitSeconds, TimeUnit.SECONDS);
+            } catch(ExecutionException e){
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+
+        try {
+            if(!permits.tryAcquire(waitSeconds, TimeUnit.SECONDS))
+                throw new TimeoutException("Too many renditions in progress");
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "success";
+            try {
+                Map<Kind, Rendition> result = renderAndStore(objectName, filename);
+                mine.complete(result);
+                return result;
+            } catch(RenditionFailedException e){
+                outcome = "unsupported";
+                failures.put(objectName, e.getMessage());
+                throw e;
+            } catch(Exception e){
+                outcome = "error";
+                throw e;
+            } finally {
+                permits.release();
+                sample.stop(meterRegistry.timer("rendition.render", "type", ScanService.fileType(filename),
+                        "outcome", outcome));
+            }
+        } catch(Exception e){
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(objectName, mine);
+        }
+    }
+
+    private Map<Kind, Rendition> renderAndStore(String objectName, String filename) throws Exception {
+        String type = ScanService.fileType(filename);
+        if(type.equals("other")) throw new RenditionFailedException("Loại file không hỗ trợ xem trước");
+
+        // PDFBox và ZipFile cần truy cập ngẫu nhiên: tải về file tạm thay vì giữ trên heap
+        Path file = Files.createTempFile("rendition-", "." + type);
+        try {
+            try(InputStream is = minioService.getFileStream(objectName)){
+                Files.copy(is, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            byte[] thumbnail;
+            byte[] preview;
+            if(type.equals("pdf")){
+                byte[][] pdf;
+                try {
+                    pdf = parserPool.run("rendition.pdf", type, () -> renderPdf(file));
+                } catch(ParseFailedException e){
+                    throw new RenditionFailedException("Không đọc được PDF: " + e.getMessage());
+                }
+                thumbnail = pdf[0];
+                preview = pdf[1];
+            } else {
+                String text = docxText(file);
+                BufferedImage image = docxThumbnail(file);
+                thumbnail = png(image != null ? scaleToWidth(image, thumbnailWidth) : textCard(text));
+                preview = text.getBytes(StandardCharsets.UTF_8);
+            }
+
+            Map<Kind, Rendition> result = new EnumMap<>(Kind.class);
+            result.put(Kind.THUMBNAIL, store(renditionName(objectName, filename, Kind.THUMBNAIL), thumbnail));
+            String previewName = renditionName(objectName, filename, Kind.PREVIEW);
+            if(preview != null) result.put(Kind.PREVIEW, store(previewName, preview));
+            else failures.put(previewName, ENCRYPTED_PDF);
+            return result;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Rendition store(String name, byte[] data) throws Exception {
+        MediaType contentType = mediaType(name);
+        ObjectWriteResponse response = minioService.putFile(name, new ByteArrayInputStream(data), data.length,
+                contentType.toString());
+        return new Rendition(name, response.etag(), contentType, data.length, data);
+    }
+
+    /** [ảnh PNG trang đầu, PDF gồm preview-pages trang đầu hoặc null nếu PDF được mã hóa]. */
+    private byte[][] renderPdf(Path file) throws IOException {
+        try(PDDocument pdf = PDDocument.load(file.toFile(), MemoryUsageSetting.setupMixed(pdfMemoryBytes))){
+            if(pdf.getNumberOfPages() == 0) throw new RenditionFailedException("PDF không có trang nào");
+            PDPage first = pdf.getPage(0);
+            PDRectangle box = first.getCropBox();
+            float width = first.getRotation() % 180 == 0 ? box.getWidth() : box.getHeight();
+            float scale = Math.min(thumbnailWidth / Math.max(width, 1f), 4f);
+            byte[] thumbnail = png(new PDFRenderer(pdf).renderImage(0, scale, ImageType.RGB));
+            // ghi lại PDF mã hóa sẽ bỏ hạn chế của mật khẩu chủ sở hữu (in, sao chép)
+            if(pdf.isEncrypted()) return new byte[][]{thumbnail, null};
+
+            // trang bị bỏ không còn được tham chiếu nên không được ghi ra khi save
+            while(pdf.getNumberOfPages() > previewPages) pdf.removePage(pdf.getNumberOfPages() - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            pdf.save(out);
+            return new byte[][]{thumbnail, out.toByteArray()};
+        } catch(InvalidPasswordException e){
+            throw new RenditionFailedException("PDF có mật khẩu");
+        } catch(RenditionFailedException e){
+            throw e;
+        } catch(IOException e){
+            // file tạm nằm trên đĩa local nên lỗi đọc ở đây là do nội dung PDF
+            throw new RenditionFailedException("Không đọc được PDF: " + e.getMessage());
+        }
+    }
+
+    /** Văn bản đầu của DOCX qua pool parse của scan (cùng giới hạn thời gian và số parse đồng thời). */
+    private String docxText(Path file) throws Exception {
+        BoundedTextBuffer text = new BoundedTextBuffer(previewChars);
+        try(InputStream is = Files.newInputStream(file)){
+            parserPool.extract(is, text, "docx");
+        } catch(ParseFailedException e){
+            throw new RenditionFailedException("Không đọc được DOCX: " + e.getMessage());
+        }
+        return text.toString().strip();
+    }
+
+    /** Ảnh xem trước Word lưu sẵn trong docProps/thumbnail.*, null nếu không có hoặc là định dạng WMF/EMF. */
+    private static BufferedImage docxThumbnail(Path file) {
+        try(ZipFile zip = new ZipFile(file.toFile())){
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while(entries.hasMoreElements()){
+                ZipEntry entry = entries.nextElement();
+                if(!entry.getName().startsWith("docProps/thumbnail.")) continue;
+                try(InputStream is = zip.getInputStream(entry)){
+                    return ImageIO.read(is);
+                }
+            }
+        } catch(IOException e){
+            log.debug("Cannot read embedded thumbnail of {}", file, e);
+        }
+        return null;
+    }
+
+    /** Thumbnail cho DOCX không có ảnh xem trước: vẽ các dòng đầu của văn bản lên trang tỉ lệ A4. */
+    private BufferedImage textCard(String text) {
+        int width = thumbnailWidth;
+        int height = Math.round(width * 1.414f);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.DARK_GRAY);
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, Math.max(6, width / 32)));
+            FontMetrics metrics = g.getFontMetrics();
+            int margin = width / 12;
+            int y = margin + metrics.getAscent();
+            for(String paragraph : text.split("\\R")){
+                StringBuilder line = new StringBuilder();
+                for(String word : paragraph.split("\\s+")){
+                    if(!line.isEmpty() && metrics.stringWidth(line + " " + word) > width - 2 * margin){
+                        g.drawString(line.toString(), margin, y);
+                        y += metrics.getHeight();
+                        if(y > height - margin) return image;
+                        line.setLength(0);
+                    }
+                    if(!line.isEmpty()) line.append(' ');
+                    line.append(word);
+                }
+                g.drawString(line.toString(), margin, y);
+                y += metrics.getHeight();
+                if(y > height - margin) return image;
+            }
+            return image;
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private static BufferedImage scaleToWidth(BufferedImage source, int width) {
+        if(source.getWidth() <= width) return source;
+        int height = Math.max(1, Math.round(source.getHeight() * (float) width / source.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static byte[] png(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private static String renditionName(String objectName, String filename, Kind kind) {
+        if(kind == Kind.THUMBNAIL) return PREFIX + objectName + "/thumbnail.png";
+        return PREFIX + objectName + (ScanService.fileType(filename).equals("pdf") ? "/preview.pdf" : "/preview.txt");
+    }
+
+    private static MediaType mediaType(String name) {
+        if(name.endsWith(".png")) return MediaType.IMAGE_PNG;
+        if(name.endsWith(".pdf")) return MediaType.APPLICATION_PDF;
+        return new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,88 @@
+package com.doc_manager.service;
+
+import com.doc_manager.detector.PiiDetector;
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.response.RescanProgress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Scan lại nền các document có nhãn từ bộ luật cũ, theo lô nhỏ qua hàng đợi scan_jobs.
+ *
+ * Mỗi lượt chỉ xếp thêm job khi hàng đợi còn dưới {@code max-queued}, nên upload mới không phải
+ * chờ sau hàng nghìn job scan lại; số job mỗi lượt tính từ {@code max-per-minute} (giới hạn trên
+ * mỗi node chạy scheduler). Document được duyệt theo id tăng dần, hết danh sách thì quay lại từ đầu
+ * để nhận những document bị bỏ qua (đang có job, scan lỗi).
+ */
+@Slf4j
+@Component
+public class RescanScheduler {
+
+    private final ScanJobService jobService;
+    private final DocumentRepository docRepo;
+    private final PiiDetector piiDetector;
+    private final Counter enqueued;
+
+    @Value("${app.rescan.enabled}") private boolean enabled;
+    @Value("${app.rescan.interval-ms}") private long intervalMs;
+    @Value("${app.rescan.max-per-minute}") private int maxPerMinute;
+    @Value("${app.rescan.max-queued}") private int maxQueued;
+    @Value("${app.rescan.idle-interval-ms}") private long idleIntervalMs;
+
+    // chỉ dùng trên thread của scheduler
+    private long cursor;
+    private long idleUntil;
+
+    public RescanScheduler(ScanJobService jobService, DocumentRepository docRepo, PiiDetector piiDetector,
+                           MeterRegistry meterRegistry) {
+        this.jobService = jobService;
+        this.docRepo = docRepo;
+        this.piiDetector = piiDetector;
+        this.enqueued = meterRegistry.counter("scan.rescan.enqueued");
+    }
+
+    @Scheduled(fixedDelayString = "${app.rescan.interval-ms}", initialDelayString = "${app.rescan.initial-delay-ms}")
+    public void tick() {
+        if(!enabled || System.currentTimeMillis() < idleUntil) return;
+        try {
+            long room = maxQueued - jobService.queuedJobs();
+            int limit = (int) Math.min(room, perTick());
+            if(limit <= 0) return;
+
+            List<Long> ids = jobService.enqueueStale(piiDetector.rulesetVersion(), cursor, limit);
+            if(ids == null) return; // node khác đang xếp hàng
+            enqueued.increment(ids.size());
+            if(ids.isEmpty() && cursor == 0){
+                // cả bảng đã theo bộ luật hiện tại: chỉ kiểm tra lại thưa (ví dụ node phiên bản cũ khi rolling deploy)
+                idleUntil = System.currentTimeMillis() + idleIntervalMs;
+            } else if(ids.size() < limit){
+                if(cursor > 0) log.debug("Rescan pass reached the end, restarting from the first document");
+                cursor = 0;
+            } else {
+                cursor = ids.stream().mapToLong(Long::longValue).max().orElse(cursor);
+            }
+        } catch(RuntimeException e){
+            log.warn("Rescan scheduling failed", e);
+        }
+    }
+
+    public RescanProgress progress() {
+        String version = piiDetector.rulesetVersion();
+        Object[] row = docRepo.countScannedByRuleset(version).get(0);
+        long scanned = ((Number) row[0]).longValue();
+        long current = ((Number) row[1]).longValue();
+        long stale = scanned - current;
+        Long eta = !enabled || stale == 0 ? null : (stale + maxPerMinute - 1) / maxPerMinute;
+        return new RescanProgress(version, scanned, current, stale, jobService.queuedJobs(), maxPerMinute, eta);
+    }
+
+    private long perTick() {
+        return Math.max(1, (long) maxPerMinute * intervalMs / 60_000);
+    }
+}
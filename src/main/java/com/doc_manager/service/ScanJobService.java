@@ -0,0 +1,143 @@
+package com.doc_manager.service;
+
+import com.doc_manager.model.ScanJob;
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.repository.ScanJobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Các thao tác transaction trên bảng scan_jobs. Tách khỏi {@link ScanJobWorker} để
+ * {@code @Transactional} đi qua proxy.
+ */
+@Service
+@RequiredArgsConstructor
+public class ScanJobService {
+
+    private final ScanJobRepository jobRepo;
+    private final DocumentRepository docRepo;
+
+    private static final long RESCAN_LOCK_KEY = 0x646f635f72736331L; // "doc_rsc1"
+
+    @Value("${app.scan.lease-seconds}") private long leaseSeconds;
+    @Value("${app.scan.max-attempts}") private int maxAttempts;
+    @Value("${app.scan.retry-base-seconds}") private long retryBaseSeconds;
+
+    /**
+     * Ghi job trong transaction hiện tại (cùng transaction với document khi gọi từ upload).
+     * Nếu document đã có job thì đưa job về PENDING để scan lại.
+     */
+    @Transactional
+    public void enqueue(Long documentId) {
+        Instant now = Instant.now();
+        ScanJob job = jobRepo.findByDocumentId(documentId)
+                .orElseGet(() -> ScanJob.builder().documentId(documentId).createdAt(now).build());
+        job.setStatus("PENDING");
+        job.setAttempts(0);
+        job.setNextAttemptAt(now);
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
+        job.setLastError(null);
+        job.setUpdatedAt(now);
+        jobRepo.save(job);
+    }
+
+    @Transactional
+    public List<ScanJob> claim(String owner, int limit) {
+        Instant now = Instant.now();
+        List<ScanJob> jobs = jobRepo.lockNextBatch(now, limit);
+        for(ScanJob job : jobs){
+            job.setStatus("RUNNING");
+            job.setAttempts(job.getAttempts() + 1);
+            job.setLeaseOwner(owner);
+            job.setLeaseExpiresAt(now.plusSeconds(leaseSeconds));
+            job.setUpdatedAt(now);
+        }
+        return jobRepo.saveAll(jobs);
+    }
+
+    @Transactional
+    public void extendLeases(String owner, Collection<Long> jobIds) {
+        if(jobIds.isEmpty()) return;
+        Instant now = Instant.now();
+        jobRepo.extendLeases(owner, jobIds, now.plusSeconds(leaseSeconds), now);
+    }
+
+    /**
+     * Đánh dấu job xong; false nếu node này đã mất lease (job đã được node khác nhận lại),
+     * khi đó caller không được ghi kết quả. Gọi trong transaction ghi kết quả để hai việc cùng commit.
+     */
+    @Transactional
+    public boolean complete(Long jobId, String owner) {
+        return jobRepo.complete(jobId, owner, Instant.now()) > 0;
+    }
+
+    /**
+     * Retry với backoff lũy thừa; hết số lần thử thì chuyển job sang DEAD và document sang ERROR.
+     * Không làm gì nếu node này đã mất lease. Job scan lại nền (document đã SCANNED/FLAGGED) chỉ ghi lỗi
+     * trên job: document giữ trạng thái và nhãn cũ, lần thử sau vẫn là scan lại.
+     */
+    @Transactional
+    public void fail(ScanJob job, String owner, Exception error) {
+        Instant now = Instant.now();
+        if(job.getAttempts() >= maxAttempts){
+            if(jobRepo.markDead(job.getId(), owner, String.valueOf(error), now) > 0)
+                docRepo.updateStatusUnlessScanned(job.getDocumentId(), "ERROR");
+        } else {
+            long backoff = retryBaseSeconds << Math.min(job.getAttempts() - 1, 16);
+            if(jobRepo.retryLater(job.getId(), owner, now.plus(Duration.ofSeconds(backoff)), String.valueOf(error), now) > 0)
+                docRepo.updateStatusUnlessScanned(job.getDocumentId(), "QUEUED");
+        }
+    }
+
+    /**
+     * Lỗi gắn với nội dung file (parse quá hạn, file hỏng): chuyển thẳng sang DEAD, không retry.
+     * Như {@link #fail}, document đang được scan lại nền giữ nguyên trạng thái.
+     */
+    @Transactional
+    public void failPermanently(ScanJob job, String owner, Exception error, String documentStatus) {
+        if(jobRepo.markDead(job.getId(), owner, String.valueOf(error), Instant.now()) > 0)
+            docRepo.updateStatusUnlessScanned(job.getDocumentId(), documentStatus);
+    }
+
+    /** Trả job về PENDING ngay (ví dụ pool từ chối nhận) mà không tính là một lần thử. */
+    @Transactional
+    public void release(Long jobId, String owner) {
+        jobRepo.release(jobId, owner, Instant.now());
+    }
+
+    /**
+     * Chạy lúc khởi động: document UPLOADED/QUEUED/SCANNING chưa có job được bổ sung job.
+     * Job RUNNING của node đã chết sẽ được node khác nhận lại khi lease hết hạn.
+     */
+    @Transactional
+    public int recover() {
+        return jobRepo.backfillMissingJobs(Instant.now());
+    }
+
+    /**
+     * Xếp hàng scan lại cho tối đa {@code limit} document cũ sau {@code afterId}. Chỉ một node làm việc này
+     * tại một thời điểm; trả về null nếu node khác đang giữ lock.
+     */
+    @Transactional
+    public List<Long> enqueueStale(String rulesetVersion, long afterId, int limit) {
+        if(!jobRepo.tryAdvisoryLock(RESCAN_LOCK_KEY)) return null;
+        return jobRepo.enqueueStale(rulesetVersion, afterId, limit, Instant.now());
+    }
+
+    /** Số job đang chờ hoặc đang chạy (scan mới lẫn scan lại). */
+    public long queuedJobs() {
+        return jobRepo.countByStatusIn(List.of("PENDING", "RUNNING"));
+    }
+
+    public List<ScanJob> deadJobs() {
+        return jobRepo.findByStatusOrderByUpdatedAtDesc("DEAD");
+    }
+}
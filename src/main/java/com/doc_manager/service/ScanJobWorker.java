@@ -0,0 +1,104 @@
+package com.doc_manager.service;
+
+import com.doc_manager.extraction.ParseFailedException;
+import com.doc_manager.model.ScanJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lấy job từ bảng scan_jobs theo lô và chạy trên pool scan có giới hạn.
+ * Chỉ nhận số job bằng số worker đang rảnh, nên lease không bị "đốt" khi job còn nằm chờ trong hàng đợi.
+ */
+@Slf4j
+@Service
+public class ScanJobWorker {
+
+    private final ScanJobService jobService;
+    private final ScanService scanService;
+    private final ThreadPoolTaskExecutor scanExecutor;
+    private final String nodeId;
+
+    @Value("${app.scan.batch-size}") private int batchSize;
+
+    /** Job node này đang giữ lease. */
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ScanJobWorker(ScanJobService jobService, ScanService scanService, ThreadPoolTaskExecutor scanExecutor,
+                         MeterRegistry meterRegistry, @Value("${app.scan.node-id:}") String nodeId) {
+        this.jobService = jobService;
+        this.scanService = scanService;
+        this.scanExecutor = scanExecutor;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        meterRegistry.gauge("scan.jobs.inflight", inFlight, Set::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        int created = jobService.recover();
+        if(created > 0) log.info("Created {} scan jobs for documents left unscanned", created);
+    }
+
+    @Scheduled(fixedDelayString = "${app.scan.poll-interval-ms}")
+    public void poll() {
+        int idle = scanExecutor.getMaxPoolSize() - scanExecutor.getActiveCount()
+                - scanExecutor.getThreadPoolExecutor().getQueue().size();
+        int limit = Math.min(batchSize, idle);
+        if(limit <= 0) return;
+
+        List<ScanJob> jobs = jobService.claim(nodeId, limit);
+        for(ScanJob job : jobs){
+            inFlight.add(job.getId());
+            try {
+                scanExecutor.execute(() -> run(job));
+            } catch(TaskRejectedException e){
+                inFlight.remove(job.getId());
+                jobService.release(job.getId(), nodeId);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.scan.lease-renew-interval-ms}")
+    public void renewLeases() {
+        jobService.extendLeases(nodeId, Set.copyOf(inFlight));
+    }
+
+    private void run(ScanJob job) {
+        try {
+            if(!scanService.scanDocument(job, nodeId))
+                log.warn("Scan job {}: lease lost to another node, result of document {} discarded",
+                        job.getId(), job.getDocumentId());
+        } catch(ParseFailedException e){
+            log.warn("Scan job {}: document {} could not be parsed", job.getId(), job.getDocumentId(), e);
+            jobService.failPermanently(job, nodeId, e, "PARSE_FAILED");
+        } catch(Exception e){
+            log.warn("Scan job {} for document {} failed (attempt {})",
+                    job.getId(), job.getDocumentId(), job.getAttempts(), e);
+            jobService.fail(job, nodeId, e);
+        } finally {
+            inFlight.remove(job.getId());
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch(Exception e){
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
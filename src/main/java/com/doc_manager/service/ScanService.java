@@ -1,67 +1,167 @@
 package com.doc_manager.service;
 
+import com.doc_manager.detector.DetectionResult;
+import com.doc_manager.detector.DetectionSession;
+import com.doc_manager.detector.PiiDetector;
+import com.doc_manager.extraction.BoundedTextBuffer;
+import com.doc_manager.extraction.ExtractionResult;
+import com.doc_manager.extraction.ParserPool;
+import com.doc_manager.extraction.TextSink;
+import com.doc_manager.model.ContentBlob;
 import com.doc_manager.model.Document;
+import com.doc_manager.model.ScanJob;
+import com.doc_manager.repository.ContentBlobRepository;
 import com.doc_manager.repository.DocumentRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
-import org.apache.tika.Tika;
-import org.springframework.scheduling.annotation.Async;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScanService {
 
     private final DocumentRepository docRepo;
+    private final ContentBlobRepository blobRepo;
     private final MinioService minioService;
-    private final Tika tika = new Tika();
+    private final PiiDetector piiDetector;
+    private final ParserPool parserPool;
+    private final SearchIndexService searchIndex;
+    private final RenditionService renditionService;
+    private final ExtractedTextStore textStore;
+    private final FindingService findingService;
+    private final ScanJobService jobService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    private final Pattern EMAIL = Pattern.compile("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}");
-    private final Pattern CMND = Pattern.compile("\\b\\d{9}\\b|\\b\\d{12}\\b");
-    private final Pattern TAX = Pattern.compile("\\b\\d{10}\\b");
-    private final Pattern BANK = Pattern.compile("(?i)(số tài khoản|stk|account)[:\\s]*([0-9\\- ]{6,30})");
+    @Value("${app.scan.extract.chunk-chars}") private int chunkChars;
+    @Value("${app.search.max-chars}") private int searchMaxChars;
 
-    @Async
-    public void scanDocumentAsync(Long docId){
-        docRepo.findById(docId).ifPresent(doc -> {
+    /**
+     * Scan đồng bộ trên thread của caller; được gọi bởi {@link ScanJobWorker}.
+     * Ném exception khi thất bại để job được retry, document giữ trạng thái SCANNING tới khi
+     * worker quyết định retry (QUEUED) hay bỏ (ERROR). Lỗi parse do chính nội dung file
+     * ({@link com.doc_manager.extraction.ParseFailedException}) không được retry.
+     *
+     * Kết quả (nhãn, finding, index) được ghi cùng transaction với việc đóng job và chỉ khi node này còn
+     * giữ lease; trả về false nếu job đã bị node khác nhận lại, khi đó không có gì được ghi.
+     *
+     * Document đã scan bằng bộ luật cũ (scan lại nền) giữ nhãn cũ tới khi có kết quả mới và được scan
+     * từ văn bản đã lưu nếu có, không tải và parse lại file gốc.
+     */
+    public boolean scanDocument(ScanJob job, String owner) throws Exception {
+        Document doc = docRepo.findById(job.getDocumentId()).orElse(null);
+        // document đã bị xóa trước khi tới lượt scan
+        if(doc == null) return jobService.complete(job.getId(), owner);
+
+        String version = piiDetector.rulesetVersion();
+        boolean rescan = isScanned(doc.getStatus());
+        // đã được scan lại bằng bộ luật hiện tại
+        if(rescan && version.equals(doc.getRulesetVersion())) return jobService.complete(job.getId(), owner);
+
+        // bản upload khác cùng nội dung đã scan xong bằng bộ luật hiện tại trong lúc job này chờ
+        String cachedLabels = doc.getContentHash() == null ? null : blobRepo.findById(doc.getContentHash())
+                .filter(blob -> version.equals(blob.getRulesetVersion()))
+                .map(ContentBlob::getLabelsJson).orElse(null);
+        if(cachedLabels != null){
+            return commit(job, owner, () -> {
+                applyLabels(doc, cachedLabels, version);
+                docRepo.save(doc);
+                findingService.reuse(doc);
+                if(!rescan) searchIndex.indexFromSameContent(doc);
+                meterRegistry.counter("scan.documents", "result", "reused").increment();
+            });
+        }
+
+        DetectionSession session = piiDetector.newSession(chunkChars);
+        if(textStore.replay(doc.getObjectName(), session::feed)){
+            DetectionResult result = session.finish();
+            String labelsJson = labelsJson(result);
+            // văn bản không đổi nên index tìm kiếm của nội dung này vẫn đúng
+            boolean completed = commit(job, owner, () -> {
+                finish(doc, result, labelsJson, version);
+                if(!rescan) searchIndex.indexFromSameContent(doc);
+            });
+            if(completed) meterRegistry.counter("scan.text.replayed").increment();
+            return completed;
+        }
+
+        if(!rescan){
             doc.setStatus("SCANNING");
             docRepo.save(doc);
+        }
 
+        // văn bản đi thẳng từ parser vào detector theo từng đoạn, không dựng chuỗi toàn văn;
+        // index tìm kiếm nhận cùng các đoạn đó nhưng chỉ giữ phần đầu có giới hạn,
+        // bản nén đầy đủ được lưu lại cho các lần scan lại sau
+        BoundedTextBuffer searchText = new BoundedTextBuffer(searchMaxChars);
+        TextSink sink = ((TextSink) session::feed).andThen(searchText);
+        try(ExtractedTextStore.Capture capture = textStore.capture()){
+            if(capture != null) sink = sink.andThen(capture);
             try(InputStream is = minioService.getFileStream(doc.getObjectName())){
-                String text = tika.parseToString(is);
-                List<String> labels = new ArrayList<>();
-
-                Matcher m = EMAIL.matcher(text);
-                while(m.find()) labels.add("EMAIL:"+m.group());
-
-                m = CMND.matcher(text);
-                while(m.find()) labels.add("CMND:"+m.group());
-
-                m = TAX.matcher(text);
-                while(m.find()) labels.add("TAX:"+m.group());
-
-                m = BANK.matcher(text);
-                while(m.find()) labels.add("BANK:"+m.group(2));
-
-                if(!labels.isEmpty()){
-                    doc.setStatus("FLAGGED");
-                    doc.setLabelsJson(objectMapper.writeValueAsString(labels));
-                } else {
-                    doc.setStatus("SCANNED");
-                    doc.setLabelsJson("[]");
-                }
-            } catch(Exception e){
-                doc.setStatus("ERROR");
-            } finally {
-                docRepo.save(doc);
+                ExtractionResult extraction = parserPool.extract(is, sink, fileType(doc.getFilename()));
+                if(extraction.truncated())
+                    log.info("Document {} text truncated at {} chars", doc.getId(), extraction.characters());
             }
+            if(capture != null) capture.store(doc.getObjectName());
+        }
+        DetectionResult result = session.finish();
+        String labelsJson = labelsJson(result);
+        boolean completed = commit(job, owner, () -> {
+            finish(doc, result, labelsJson, version);
+            searchIndex.index(doc, searchText.toString());
         });
+        if(completed && !rescan) renditionService.renderLater(doc.getObjectName(), doc.getFilename());
+        return completed;
+    }
+
+    // đóng job trước: UPDATE có điều kiện theo lease khóa dòng job nên node khác không nhận lại được
+    // cho tới khi transaction kết thúc; mất lease thì bỏ qua mọi thao tác ghi
+    private boolean commit(ScanJob job, String owner, Runnable writes) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(tx -> {
+            if(!jobService.complete(job.getId(), owner)) return false;
+            writes.run();
+            return true;
+        }));
+    }
+
+    private String labelsJson(DetectionResult result) throws Exception {
+        return result.isEmpty() ? "[]" : objectMapper.writeValueAsString(result.labels());
+    }
+
+    private void finish(Document doc, DetectionResult result, String labelsJson, String version) {
+        // loại PII là tập cố định theo rule nên dùng làm tag được
+        result.counts().forEach((type, count) -> meterRegistry.counter("scan.pii.hits", "type", type).increment(count));
+        meterRegistry.counter("scan.documents", "result", result.isEmpty() ? "clean" : "flagged").increment();
+
+        applyLabels(doc, labelsJson, version);
+        docRepo.save(doc);
+        findingService.record(doc.getId(), result);
+        if(doc.getContentHash() != null) blobRepo.updateLabels(doc.getContentHash(), labelsJson, version);
+    }
+
+    static void applyLabels(Document doc, String labelsJson, String rulesetVersion) {
+        doc.setStatus("[]".equals(labelsJson) ? "SCANNED" : "FLAGGED");
+        doc.setLabelsJson(labelsJson);
+        doc.setRulesetVersion(rulesetVersion);
+    }
+
+    static boolean isScanned(String status) {
+        return "SCANNED".equals(status) || "FLAGGED".equals(status);
+    }
+
+    /** Tag ít giá trị cho metric, lấy theo phần mở rộng đã được kiểm tra lúc upload. */
+    static String fileType(String filename) {
+        String lower = filename == null ? "" : filename.toLowerCase();
+        if(lower.endsWith(".pdf")) return "pdf";
+        if(lower.endsWith(".docx")) return "docx";
+        return "other";
     }
-}
\ No newline at end of file
+}
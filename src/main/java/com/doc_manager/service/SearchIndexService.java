@@ -0,0 +1,47 @@
+package com.doc_manager.service;
+
+import com.doc_manager.model.Document;
+import com.doc_manager.repository.DocumentSearchRepository;
+import com.doc_manager.response.SearchHit;
+import com.doc_manager.response.SearchPage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Index full-text, được nạp từ văn bản mà scan đã trích xuất sẵn (không parse file lần thứ hai).
+ * Xóa document thì index bị xóa theo qua FK ON DELETE CASCADE.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SearchIndexService {
+
+    private final DocumentSearchRepository searchRepo;
+
+    public void index(Document doc, String text) {
+        // Postgres không nhận ký tự NUL trong text; một số parser có thể phát ra
+        searchRepo.upsert(doc.getId(), doc.getTitle(), text.replace('\u0000', ' '), Instant.now());
+    }
+
+    /** Với document dùng lại kết quả scan của bản cùng nội dung. */
+    public void indexFromSameContent(Document doc) {
+        if(doc.getContentHash() == null) return;
+        int rows = searchRepo.copyFromSameContent(doc.getId(), doc.getContentHash(), doc.getTitle(), Instant.now());
+        if(rows == 0) log.debug("No indexed copy of content {} for document {}", doc.getContentHash(), doc.getId());
+    }
+
+    public void updateTitle(Long docId, String title) {
+        searchRepo.updateTitle(docId, title);
+    }
+
+    public SearchPage search(String username, String query, int page, int size) {
+        // lấy dư một dòng để biết còn trang sau
+        List<SearchHit> rows = searchRepo.search(username, query, size + 1, (long) page * size);
+        boolean hasMore = rows.size() > size;
+        return new SearchPage(hasMore ? rows.subList(0, size) : rows, page, hasMore);
+    }
+}
@@ -0,0 +1,125 @@
+package com.doc_manager.service;
+
+import com.doc_manager.cache.BlobCache;
+import com.doc_manager.repository.BlobDeletionRepository;
+import com.doc_manager.response.ReconcileResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dọn nền cho document đã xóa (tombstone): xóa hẳn dòng theo lô, rồi xóa object trên MinIO bằng
+ * multi-object delete. Object xóa lỗi được thử lại với backoff; chạy được trên nhiều node cùng lúc.
+ */
+@Slf4j
+@Component
+public class StorageCollector {
+
+    private final DocumentService documentService;
+    private final BlobDeletionRepository deletionRepo;
+    private final MinioService minioService;
+    private final BlobCache blobCache;
+    private final StorageReconciler reconciler;
+    private final Counter purgedDocuments;
+    private final Counter removedObjects;
+    private final Counter failedObjects;
+
+    @Value("${app.gc.batch-size}") private int batchSize;
+    @Value("${app.gc.max-batches}") private int maxBatches;
+    @Value("${app.gc.lease-seconds}") private long leaseSeconds;
+    @Value("${app.gc.retry-base-seconds}") private long retryBaseSeconds;
+    @Value("${app.gc.retry-max-seconds}") private long retryMaxSeconds;
+
+    public StorageCollector(DocumentService documentService, BlobDeletionRepository deletionRepo,
+                            MinioService minioService, BlobCache blobCache, StorageReconciler reconciler,
+                            MeterRegistry meterRegistry) {
+        this.documentService = documentService;
+        this.deletionRepo = deletionRepo;
+        this.minioService = minioService;
+        this.blobCache = blobCache;
+        this.reconciler = reconciler;
+        this.purgedDocuments = meterRegistry.counter("storage.gc.documents");
+        this.removedObjects = meterRegistry.counter("storage.gc.objects", "outcome", "removed");
+        this.failedObjects = meterRegistry.counter("storage.gc.objects", "outcome", "failed");
+    }
+
+    @Scheduled(fixedDelayString = "${app.gc.interval-ms}")
+    public void collect() {
+        try {
+            // giới hạn số lô mỗi lượt để một đợt xóa lớn không chiếm scheduler quá lâu
+            for(int i = 0; i < maxBatches; i++){
+                int purged = documentService.purgeTombstones(batchSize);
+                purgedDocuments.increment(purged);
+                if(purged < batchSize) break;
+            }
+            for(int i = 0; i < maxBatches; i++){
+                if(removeDueObjects() < batchSize) break;
+            }
+        } catch(RuntimeException e){
+            log.warn("Storage collection failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.gc.reconcile.interval-ms}",
+            initialDelayString = "${app.gc.reconcile.initial-delay-ms}")
+    public void reconcile() {
+        try {
+            ReconcileResult result = reconciler.reconcile();
+            if(result != null) log.info("Storage reconciliation: {}", result);
+        } catch(RuntimeException e){
+            log.warn("Storage reconciliation failed", e);
+        }
+    }
+
+    /** Trả về số object đã nhận trong lô. */
+    int removeDueObjects() {
+        Instant now = Instant.now();
+        List<String> claimed = deletionRepo.claimDue(now, now.plusSeconds(leaseSeconds), batchSize);
+        if(claimed.isEmpty()) return 0;
+
+        claimed.forEach(blobCache::invalidate);
+        // rendition và văn bản trích xuất đi cùng object gốc trong cùng request xóa;
+        // xóa key không tồn tại vẫn thành công
+        Map<String, String> sources = new HashMap<>();
+        for(String name : claimed){
+            sources.put(name, name);
+            sources.put(ExtractedTextStore.objectName(name), name);
+            for(String rendition : RenditionService.objectNames(name)) sources.put(rendition, name);
+        }
+        Set<String> failed;
+        String error = null;
+        try {
+            failed = new HashSet<>();
+            // object gốc coi như lỗi nếu một rendition của nó chưa xóa được, để lần thử lại dọn nốt
+            for(String name : minioService.removeFiles(sources.keySet())) failed.add(sources.getOrDefault(name, name));
+            if(!failed.isEmpty()) error = "rejected by MinIO";
+        } catch(Exception e){
+            failed = new HashSet<>(claimed);
+            error = e.toString();
+        }
+
+        List<String> removed = new ArrayList<>(claimed.size());
+        for(String name : claimed){
+            if(!failed.contains(name)) removed.add(name);
+        }
+        if(!removed.isEmpty()) deletionRepo.deleteByObjectNames(removed);
+        if(!failed.isEmpty()){
+            deletionRepo.markFailed(failed, retryBaseSeconds, retryMaxSeconds, error);
+            log.warn("Could not remove {} objects, will retry: {}", failed.size(), error);
+        }
+        removedObjects.increment(removed.size());
+        failedObjects.increment(failed.size());
+        return claimed.size();
+    }
+}
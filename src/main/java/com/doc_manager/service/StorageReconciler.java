@@ -0,0 +1,201 @@
+package com.doc_manager.service;
+
+import com.doc_manager.repository.DocumentBatchRepository;
+import com.doc_manager.response.ReconcileResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.Result;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Đối soát định kỳ giữa bucket và DB để bắt những gì collector không thấy (node chết giữa chừng,
+ * object ghi lên MinIO nhưng transaction rollback...).
+ *
+ * Listing của bucket và danh sách object name trong DB cùng được sắp theo thứ tự byte rồi trộn như
+ * merge join, nên bộ nhớ không phụ thuộc số object. Object và document mới hơn {@code grace}
+ * được bỏ qua vì có thể đang upload dở. Chỉ một node chạy tại một thời điểm (advisory lock);
+ * lịch chạy nằm ở {@link StorageCollector}.
+ */
+@Slf4j
+@Component
+public class StorageReconciler {
+
+    private static final long LOCK_KEY = 0x646f635f72656331L; // "doc_rec1"
+    private static final int FLUSH_SIZE = 1000;
+    private static final int MAX_SAMPLES = 100;
+
+    private final MinioService minioService;
+    private final DocumentBatchRepository batchRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.gc.reconcile.grace-hours}") private long graceHours;
+    @Value("${app.gc.reconcile.excluded-prefixes}") private List<String> excludedPrefixes;
+
+    public StorageReconciler(MinioService minioService, DocumentBatchRepository batchRepo, DataSource dataSource,
+                             JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.minioService = minioService;
+        this.batchRepo = batchRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        // đọc DB theo cursor thay vì nạp cả kết quả (pgjdbc chỉ dùng fetch size khi trong transaction)
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(FLUSH_SIZE);
+    }
+
+    /** null nếu node khác đang đối soát. */
+    @Transactional
+    public ReconcileResult reconcile() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+        if(!Boolean.TRUE.equals(locked)) return null;
+
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(Duration.ofHours(graceHours));
+        Merge merge = new Merge(minioService.listFiles().iterator(), this::excluded,
+                names -> batchRepo.enqueueBlobDeletions(names, now), cutoff);
+        // cùng một tên có thể xuất hiện ở document (nhiều bản trùng), blobs và hàng đợi xóa;
+        // must_exist: có document còn hiệu lực, đủ cũ và đã upload xong trỏ tới object này
+        streamingJdbcTemplate.query("""
+                SELECT object_name, bool_or(must_exist) AS must_exist FROM (
+                    SELECT object_name, (deleted_at IS NULL AND status <> 'PENDING_UPLOAD'
+                                         AND uploaded_at < ?) AS must_exist FROM document
+                    UNION ALL SELECT object_name, false FROM blobs
+                    UNION ALL SELECT object_name, false FROM blob_deletions
+                ) refs
+                WHERE object_name IS NOT NULL
+                GROUP BY object_name
+                ORDER BY object_name COLLATE "C"
+                """, merge, Timestamp.from(cutoff));
+        merge.finish();
+
+        meterRegistry.counter("storage.reconcile.orphans", "kind", "object").increment(merge.orphans);
+        meterRegistry.counter("storage.reconcile.orphans", "kind", "row").increment(merge.missing);
+        if(merge.missing > 0)
+            log.warn("{} documents point to missing objects, e.g. {}", merge.missing, merge.missingSamples);
+        return new ReconcileResult(merge.scanned, merge.orphans, merge.missing, merge.missingSamples);
+    }
+
+    private boolean excluded(String objectName) {
+        for(String prefix : excludedPrefixes){
+            if(!prefix.isBlank() && objectName.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /** So sánh theo byte UTF-8, giống thứ tự của S3 và COLLATE "C". */
+    static int compareNames(String a, String b) {
+        return Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Trộn listing bucket với các dòng DB, cả hai đã sắp theo {@link #compareNames}. Một trong hai nguồn
+     * sai thứ tự sẽ biến object còn dùng thành "mồ côi", nên gặp sai thứ tự là dừng hẳn: exception làm
+     * transaction của reconcile rollback, kể cả các lô đã xếp vào hàng đợi xóa.
+     */
+    static class Merge implements RowCallbackHandler {
+
+        private final Iterator<Result<Item>> bucket;
+        private final Predicate<String> excluded;
+        private final Consumer<List<String>> enqueue;
+        private final Instant cutoff;
+        private final List<String> pending = new ArrayList<>();
+        final List<String> missingSamples = new ArrayList<>();
+        private Item current;
+        private String previousRow;
+        long scanned;
+        long orphans;
+        long missing;
+
+        Merge(Iterator<Result<Item>> bucket, Predicate<String> excluded, Consumer<List<String>> enqueue,
+              Instant cutoff) {
+            this.bucket = bucket;
+            this.excluded = excluded;
+            this.enqueue = enqueue;
+            this.cutoff = cutoff;
+            advance();
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            row(rs.getString("object_name"), rs.getBoolean("must_exist"));
+        }
+
+        void row(String name, boolean mustExist) {
+            if(previousRow != null){
+                int order = compareNames(previousRow, name);
+                // GROUP BY đã gộp tên trùng; nếu vẫn gặp thì dòng trước đã xử lý tên này rồi
+                if(order == 0) return;
+                if(order > 0) throw new IllegalStateException("DB rows out of order: " + previousRow + " > " + name);
+            }
+            previousRow = name;
+            while(current != null && compareNames(current.objectName(), name) < 0){
+                orphan(current);
+                advance();
+            }
+            if(current != null && current.objectName().equals(name)){
+                advance();
+            } else if(mustExist){
+                missing++;
+                if(missingSamples.size() < MAX_SAMPLES) missingSamples.add(name);
+            }
+        }
+
+        void finish() {
+            while(current != null){
+                orphan(current);
+                advance();
+            }
+            flush();
+        }
+
+        private void orphan(Item item) {
+            if(item.lastModified().toInstant().isAfter(cutoff)) return;
+            orphans++;
+            pending.add(item.objectName());
+            if(pending.size() >= FLUSH_SIZE) flush();
+        }
+
+        private void flush() {
+            if(pending.isEmpty()) return;
+            enqueue.accept(List.copyOf(pending));
+            pending.clear();
+        }
+
+        private void advance() {
+            String previous = current == null ? null : current.objectName();
+            try {
+                while(bucket.hasNext()){
+                    Item item = bucket.next().get();
+                    if(item.isDir() || excluded.test(item.objectName())) continue;
+                    if(previous != null && compareNames(previous, item.objectName()) >= 0)
+                        throw new IllegalStateException("Bucket listing out of order: " + previous + " >= " + item.objectName());
+                    scanned++;
+                    current = item;
+                    return;
+                }
+                current = null;
+            } catch(IllegalStateException e){
+                throw e;
+            } catch(Exception e){
+                throw new IllegalStateException("Listing bucket failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.doc_manager.service;
+
+import com.doc_manager.cache.SecurityGraphCache;
+import com.doc_manager.entity.User;
+import com.doc_manager.repository.RoleRepository;
+import com.doc_manager.repository.UserRepository;
+import com.doc_manager.response.GrantResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Gán/bỏ role của user. Cùng transaction với thay đổi user_roles: tính lại document_access của user
+ * (document chia sẻ theo role) và xóa cache user/UserDetails trên mọi node.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserRoleService {
+
+    private final UserRepository userRepo;
+    private final RoleRepository roleRepo;
+    private final DocumentAccessService accessService;
+    private final SecurityGraphCache securityGraphCache;
+
+    @Transactional
+    public GrantResult addRoles(User user, Collection<String> roleNames) {
+        List<String> requested = DocumentService.normalize(roleNames);
+        int changed = 0;
+        for(List<String> chunk : DocumentService.chunks(requested)){
+            changed += userRepo.insertRoles(user.getId(), chunk);
+        }
+        return changed(user, changed, requested);
+    }
+
+    @Transactional
+    public GrantResult removeRoles(User user, Collection<String> roleNames) {
+        List<String> requested = DocumentService.normalize(roleNames);
+        int changed = 0;
+        for(List<String> chunk : DocumentService.chunks(requested)){
+            changed += userRepo.deleteRoles(user.getId(), chunk);
+        }
+        return changed(user, changed, requested);
+    }
+
+    private GrantResult changed(User user, int changed, List<String> requested) {
+        if(changed > 0){
+            accessService.refreshUsers(List.of(user.getUsername()));
+            securityGraphCache.userChanged(user.getId(), user.getUsername());
+        }
+        return new GrantResult(changed, DocumentService.missing(requested, roleRepo::findExistingNames));
+    }
+}
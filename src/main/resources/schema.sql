@@ -0,0 +1,4 @@
+-- Chạy sau khi Hibernate tạo/cập nhật bảng (spring.jpa.defer-datasource-initialization=true).
+-- Các index Hibernate không sinh được qua annotation.
+CREATE INDEX IF NOT EXISTS idx_document_search_tsv ON document_search USING GIN (tsv);
+CREATE INDEX IF NOT EXISTS idx_document_tombstones ON document (deleted_at) WHERE deleted_at IS NOT NULL;
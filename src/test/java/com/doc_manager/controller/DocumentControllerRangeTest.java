@@ -0,0 +1,196 @@
+package com.doc_manager.controller;
+
+import com.doc_manager.cache.BlobCache;
+import com.doc_manager.repository.DocumentFile;
+import com.doc_manager.repository.DocumentRepository;
+import com.doc_manager.security.AclEntry;
+import com.doc_manager.security.DocumentAcl;
+import com.doc_manager.service.DocumentMetrics;
+import com.doc_manager.service.DocumentService;
+import com.doc_manager.service.MinioService;
+import com.doc_manager.service.RenditionService;
+import com.doc_manager.service.SearchIndexService;
+import io.minio.StatObjectResponse;
+import okhttp3.Headers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/** Range / If-Range của {@code GET /api/documents/download/{id}}, file 100 byte. */
+@ExtendWith(OutputCaptureExtension.class)
+class DocumentControllerRangeTest {
+
+    private static final String OBJECT = "uploads/a.pdf";
+    private static final String ETAG = "\"abc123\"";
+    private static final ZonedDateTime MODIFIED = ZonedDateTime.of(2026, 3, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+    // định dạng IMF-fixdate (ngày 2 chữ số) như MinIO trả về
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+    private static final String MODIFIED_HTTP = HTTP_DATE.format(MODIFIED);
+
+    private final MinioService minioService = mock(MinioService.class);
+    private final DocumentRepository docRepo = mock(DocumentRepository.class);
+    private final DocumentAcl documentAcl = mock(DocumentAcl.class);
+    private final BlobCache blobCache = mock(BlobCache.class);
+    private final byte[] content = new byte[100];
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for(int i = 0; i < content.length; i++) content[i] = (byte) i;
+        DocumentController controller = new DocumentController(minioService, docRepo, mock(DocumentService.class),
+                documentAcl, mock(SearchIndexService.class), blobCache, mock(DocumentMetrics.class),
+                mock(RenditionService.class));
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+        AclEntry acl = new AclEntry(1, new int[0]);
+        when(documentAcl.find(1L)).thenReturn(acl);
+        when(documentAcl.canRead(eq(acl), any())).thenReturn(true);
+        DocumentFile file = mock(DocumentFile.class);
+        when(file.getId()).thenReturn(1L);
+        when(file.getObjectName()).thenReturn(OBJECT);
+        when(file.getFilename()).thenReturn("a.pdf");
+        when(docRepo.findFileById(1L)).thenReturn(Optional.of(file));
+
+        when(minioService.statFile(OBJECT)).thenReturn(new StatObjectResponse(Headers.of(
+                "ETag", ETAG,
+                "Last-Modified", MODIFIED_HTTP,
+                "Content-Length", "100"), "bucket", "", OBJECT));
+        when(minioService.getFileStream(OBJECT)).thenAnswer(i -> new ByteArrayInputStream(content));
+        when(minioService.getFileStream(eq(OBJECT), anyLong(), anyLong())).thenAnswer(i -> new ByteArrayInputStream(
+                content, ((Long) i.getArgument(1)).intValue(), ((Long) i.getArgument(2)).intValue()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private byte[] slice(int from, int to) {
+        byte[] out = new byte[to - from + 1];
+        System.arraycopy(content, from, out, 0, out.length);
+        return out;
+    }
+
+    @Test
+    void noRangeReturnsWholeFile() throws Exception {
+        mvc.perform(get("/api/documents/download/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void singleRangeReturnsPartialContent() throws Exception {
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/100"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 10))
+                .andExpect(content().bytes(slice(10, 19)));
+        verify(minioService).getFileStream(OBJECT, 10, 10);
+    }
+
+    @Test
+    void suffixAndOpenEndedRanges() throws Exception {
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=-20"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 80-99/100"))
+                .andExpect(content().bytes(slice(80, 99)));
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=90-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 90-99/100"));
+        // end vượt quá file được cắt về byte cuối
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=95-500"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 95-99/100"));
+    }
+
+    @Test
+    void multipleOrMalformedRangesFallBackToWholeFile() throws Exception {
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=0-9,20-29"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(content));
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "items=0-9"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void unsatisfiableRangeReturns416() throws Exception {
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"));
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=150-200"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"));
+        verify(minioService, never()).getFileStream(anyString());
+        verify(minioService, never()).getFileStream(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void ifRangeWithCurrentStrongEtagServesTheRange() throws Exception {
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/100"));
+    }
+
+    @Test
+    void ifRangeWithOtherOrWeakEtagServesWholeFile() throws Exception {
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+        // If-Range dùng so sánh mạnh: ETag yếu không bao giờ khớp
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "W/" + ETAG))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void ifRangeWithDate() throws Exception {
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, MODIFIED_HTTP))
+                .andExpect(status().isPartialContent());
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, HTTP_DATE.format(MODIFIED.minusDays(1))))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/documents/download/1").header(HttpHeaders.RANGE, "bytes=0-9")
+                        .header(HttpHeaders.IF_RANGE, "yesterday"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void storageFailureIsLoggedAndReturns500(CapturedOutput output) throws Exception {
+        when(minioService.statFile(OBJECT)).thenThrow(new IllegalStateException("minio down"));
+        mvc.perform(get("/api/documents/download/1"))
+                .andExpect(status().isInternalServerError());
+        assertThat(output).contains("Download of document 1 failed").contains("minio down");
+    }
+}
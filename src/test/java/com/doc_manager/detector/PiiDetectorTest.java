@@ -0,0 +1,136 @@
+package com.doc_manager.detector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PiiDetectorTest {
+
+    // Bộ regex cũ của ScanService, dùng làm chuẩn so sánh
+    private static final Pattern EMAIL = Pattern.compile("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}");
+    private static final Pattern CMND = Pattern.compile("\\b\\d{9}\\b|\\b\\d{12}\\b");
+    private static final Pattern TAX = Pattern.compile("\\b\\d{10}\\b");
+    private static final Pattern BANK = Pattern.compile("(?i)(số tài khoản|stk|account)[:\\s]*([0-9\\- ]{6,30})");
+
+    private final PiiDetector detector = new PiiDetector(List.of(
+            new EmailRule(),
+            new DigitLengthRule("CMND", 9, 12),
+            new DigitLengthRule("TAX", 10),
+            new KeywordNumberRule("BANK", List.of("số tài khoản", "stk", "account"))), 10_000);
+
+    static Set<String> regexLabels(String text) {
+        Set<String> labels = new LinkedHashSet<>();
+        Matcher m = EMAIL.matcher(text);
+        while(m.find()) labels.add("EMAIL:" + m.group());
+        m = CMND.matcher(text);
+        while(m.find()) labels.add("CMND:" + m.group());
+        m = TAX.matcher(text);
+        while(m.find()) labels.add("TAX:" + m.group());
+        m = BANK.matcher(text);
+        while(m.find()) labels.add("BANK:" + m.group(2));
+        return labels;
+    }
+
+    private void assertSameAsRegex(String text) {
+        assertThat(Set.copyOf(detector.detect(text).labels()))
+                .as(text)
+                .isEqualTo(regexLabels(text));
+    }
+
+    @Test
+    void detectsAllTypesInOnePass() {
+        String text = "Liên hệ nguyen.van.a@example.com.vn, CMND 123456789, CCCD 001234567890, "
+                + "MST 0312345678, số tài khoản: 0123-456-789 tại VCB.";
+        DetectionResult result = detector.detect(text);
+
+        assertThat(result.labels()).containsExactlyInAnyOrder(
+                "EMAIL:nguyen.van.a@example.com.vn",
+                "CMND:123456789",
+                "CMND:001234567890",
+                "TAX:0312345678",
+                "BANK:0123-456-789 ");
+        assertSameAsRegex(text);
+    }
+
+    @Test
+    void deduplicatesAndCounts() {
+        DetectionResult result = detector.detect("a@b.io a@b.io 123456789 x 123456789 a@b.io");
+
+        assertThat(result.findings()).hasSize(2);
+        assertThat(result.counts()).containsEntry("EMAIL", 3).containsEntry("CMND", 2);
+        assertThat(result.findings().get(0).occurrences()).isEqualTo(3);
+        assertThat(result.findings().get(0).firstOffset()).isZero();
+    }
+
+    @Test
+    void matchesRegexOnEdgeCases() {
+        for(String text : List.of(
+                "a@b@c.com",
+                "x@a.com@b.org",
+                "user123456789@x.io 123456789x _123456789 1234567890123",
+                "stk:    12345 xyz",
+                "account 987654 and account: 1111 2222 3333 4444 5555 6666 7777 8888",
+                "mail: a.b@c.d, e@f.gh1, g@h.ijk.l, @@a@@b.cd",
+                "số tài khoản0123456, STK-99999999")){
+            assertSameAsRegex(text);
+        }
+    }
+
+    @Test
+    void matchesRegexOnRandomText() {
+        String[] tokens = {"a", "Bc", "ệ", "@", ".", "-", "_", " ", "  ", ":", "\n", "com", "vn",
+                "1", "12", "123", "1234", "12345", "123456789", "0123456789", "001234567890",
+                "stk", "account", "số tài khoản", "x.y", "@mail.com", "+"};
+        Random random = new Random(42);
+        for(int round = 0; round < 2_000; round++){
+            StringBuilder sb = new StringBuilder();
+            int len = 1 + random.nextInt(40);
+            for(int i = 0; i < len; i++) sb.append(tokens[random.nextInt(tokens.length)]);
+            assertSameAsRegex(sb.toString());
+        }
+    }
+
+    @Test
+    void chunkedSessionFindsMatchesAcrossChunkBoundaries() {
+        String[] tokens = {"a", "ệ", "@", ".", " ", ":", "\n", "com", "12345", "123456789", "0123456789",
+                "stk", "account", "số tài khoản", "@mail.com", "lorem ipsum dolor sit amet "};
+        Random random = new Random(1);
+        for(int round = 0; round < 200; round++){
+            StringBuilder sb = new StringBuilder();
+            int len = 1 + random.nextInt(3_000);
+            for(int i = 0; i < len; i++) sb.append(tokens[random.nextInt(tokens.length)]);
+            char[] text = sb.toString().toCharArray();
+
+            DetectionSession session = detector.newSession(1 + random.nextInt(2_000));
+            for(int pos = 0; pos < text.length; ){
+                int n = Math.min(text.length - pos, 1 + random.nextInt(700));
+                session.feed(text, pos, n);
+                pos += n;
+            }
+            DetectionResult chunked = session.finish();
+            DetectionResult whole = detector.detect(sb);
+
+            assertThat(chunked.counts()).isEqualTo(whole.counts());
+            assertThat(Set.copyOf(chunked.findings())).isEqualTo(Set.copyOf(whole.findings()));
+        }
+    }
+
+    @Test
+    void rulesetVersionDependsOnRulesNotOrder() {
+        EmailRule email = new EmailRule();
+        DigitLengthRule tax = new DigitLengthRule("TAX", 10);
+        String version = new PiiDetector(List.of(email, tax), 100).rulesetVersion();
+
+        assertThat(new PiiDetector(List.of(tax, email), 100).rulesetVersion()).isEqualTo(version);
+        assertThat(new PiiDetector(List.of(email, new DigitLengthRule("TAX", 10, 13)), 100).rulesetVersion())
+                .isNotEqualTo(version);
+        assertThat(new PiiDetector(List.of(email, tax), 100, "2").rulesetVersion()).isNotEqualTo(version);
+    }
+}
@@ -0,0 +1,135 @@
+package com.doc_manager.extraction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.parser.txt.TXTParser;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.xml.sax.ContentHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class ParserPoolTest {
+
+    private final CountDownLatch unblock = new CountDownLatch(1);
+
+    // parser "bệnh": bỏ qua interrupt, chỉ thoát khi test cho phép; file "ok" thì xong ngay
+    private final TextExtractor extractor = new TextExtractor() {
+        @Override
+        public ExtractionResult extract(InputStream stream, TextSink sink) throws Exception {
+            if(stream.read() == 'h'){
+                while(true){
+                    try {
+                        if(unblock.await(10, TimeUnit.SECONDS)) break;
+                    } catch(InterruptedException ignored){
+                    }
+                }
+            }
+            return new ExtractionResult(2, false, "text/plain");
+        }
+    };
+
+    private static InputStream file(String content) {
+        return new ByteArrayInputStream(content.getBytes());
+    }
+
+    @Test
+    void abandonedParseKeepsItsSlotUntilTheThreadExits() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ParserPool pool = new ParserPool(extractor, registry, 1, 200);
+        try {
+            assertThatThrownBy(() -> pool.extract(file("hang"), (ch, start, length) -> {}, "pdf"))
+                    .isInstanceOf(ParseFailedException.class);
+            assertThat(registry.get("scan.parse.abandoned").gauge().value()).isEqualTo(1);
+
+            // thread quá hạn vẫn chạy nên không có thêm thread parse nào được tạo
+            assertThatThrownBy(() -> pool.extract(file("ok"), (ch, start, length) -> {}, "pdf"))
+                    .isInstanceOf(TimeoutException.class);
+
+            unblock.countDown();
+            assertThat(pool.extract(file("ok"), (ch, start, length) -> {}, "pdf").characters()).isEqualTo(2);
+            assertThat(registry.get("scan.parse.abandoned").gauge().value()).isZero();
+        } finally {
+            unblock.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void forkedParseRunsInAChildJvm() throws Exception {
+        TextExtractor forked = forkedExtractor(new TXTParser(), 10_000);
+        try {
+            StringBuilder text = new StringBuilder();
+            ExtractionResult result = forked.extract(file("hello from the child"), (ch, start, length) -> text.append(ch, start, length));
+            assertThat(text.toString()).contains("hello from the child");
+            assertThat(result.characters()).isPositive();
+        } finally {
+            forked.close();
+        }
+    }
+
+    @Test
+    void forkedParseThatNeverReturnsIsKilledAndFreesItsSlot() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TextExtractor forked = forkedExtractor(new SpinningParser(), 2_000);
+        ParserPool pool = new ParserPool(forked, registry, 1, 500);
+        try {
+            assertThatThrownBy(() -> pool.extract(file("hang"), (ch, start, length) -> {}, "pdf"))
+                    .isInstanceOf(ParseFailedException.class);
+            assertThat(registry.get("scan.parse.abandoned").gauge().value()).isEqualTo(1);
+
+            // JVM con tự thoát khi quá hạn, thread parse ở node chính nhận lỗi và trả chỗ
+            await().atMost(Duration.ofSeconds(30))
+                    .until(() -> registry.get("scan.parse.abandoned").gauge().value() == 0);
+            assertThatThrownBy(() -> pool.extract(file("hang"), (ch, start, length) -> {}, "pdf"))
+                    .isInstanceOf(ParseFailedException.class);
+        } finally {
+            pool.shutdown();
+            forked.close();
+        }
+    }
+
+    private static TextExtractor forkedExtractor(Parser parser, long parseTimeoutMillis) {
+        TextExtractor forked = new TextExtractor(parser);
+        ReflectionTestUtils.setField(forked, "maxChars", 1_000_000L);
+        ReflectionTestUtils.setField(forked, "maxMillis", 60_000L);
+        ReflectionTestUtils.setField(forked, "maxEmbeddedDepth", 3);
+        ReflectionTestUtils.setField(forked, "mode", "forked");
+        ReflectionTestUtils.setField(forked, "poolSize", 1);
+        ReflectionTestUtils.setField(forked, "parseTimeoutMillis", parseTimeoutMillis);
+        ReflectionTestUtils.setField(forked, "forkMaxHeap", "64m");
+        ReflectionTestUtils.setField(forked, "forkMaxFiles", 100);
+        forked.init();
+        return forked;
+    }
+
+    /** Parser chạy mãi, bỏ qua interrupt: chỉ dừng được bằng cách giết JVM chứa nó. */
+    static class SpinningParser extends AbstractParser {
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Set.of(MediaType.TEXT_PLAIN);
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context) {
+            while(true){
+                try { Thread.sleep(100); }
+                catch(InterruptedException ignored){ }
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.doc_manager.load;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tải thử download với nhiều client đọc chậm, đồng thời đo độ trễ của một request nhanh (probe)
+ * để thấy server còn nhận việc hay đã hết thread.
+ *
+ * Cách chạy so sánh hai chế độ:
+ * <ol>
+ *   <li>Chạy app với {@code spring.threads.virtual.enabled=false} và {@code server.tomcat.threads.max=50} (để dễ thấy bão hòa),
+ *       upload một file lớn hơn bộ đệm socket (vd. 10 MB, tắt blob cache hoặc để nguyên đều được).</li>
+ *   <li>{@code mvn test-compile} rồi chạy main của lớp này với classpath test:
+ *       {@code -Dbase=http://localhost:8080 -Dtoken=<jwt> -Ddoc=<id> -Dclients=200 -DbytesPerSecond=16384 -Dseconds=30}</li>
+ *   <li>Lặp lại với {@code spring.threads.virtual.enabled=true} (Java 21+) và so sánh số client nhận được byte đầu
+ *       cùng p99 của probe.</li>
+ * </ol>
+ * Ở chế độ platform, khi số client chậm vượt số thread, các client còn lại và probe phải chờ;
+ * ở chế độ virtual mọi client được phục vụ song song và probe giữ độ trễ thấp.
+ */
+public class SlowClientLoadRunner {
+
+    public static void main(String[] args) throws Exception {
+        URI base = URI.create(System.getProperty("base", "http://localhost:8080"));
+        String token = System.getProperty("token", "");
+        long docId = Long.getLong("doc", 1L);
+        int clients = Integer.getInteger("clients", 200);
+        int bytesPerSecond = Integer.getInteger("bytesPerSecond", 16 * 1024);
+        int seconds = Integer.getInteger("seconds", 30);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        List<Long> firstByteMillis = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        for(int i = 0; i < clients; i++){
+            pool.submit(() -> {
+                try {
+                    slowDownload(base, token, docId, bytesPerSecond, deadline, firstByteMillis, bytes);
+                    started.incrementAndGet();
+                } catch(Exception e){
+                    failed.incrementAndGet();
+                }
+            });
+        }
+
+        HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest probe = HttpRequest.newBuilder(base.resolve("/actuator/health"))
+                .timeout(Duration.ofSeconds(5))
+                .header("Authorization", "Bearer " + token)
+                .build();
+        List<Long> probeMillis = new ArrayList<>();
+        int probeTimeouts = 0;
+        while(System.nanoTime() < deadline){
+            long t0 = System.nanoTime();
+            try {
+                http.send(probe, HttpResponse.BodyHandlers.discarding());
+                probeMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+            } catch(Exception e){
+                probeTimeouts++;
+            }
+            Thread.sleep(250);
+        }
+
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.printf("clients=%d bytesPerSecond=%d seconds=%d%n", clients, bytesPerSecond, seconds);
+        System.out.printf("clients receiving data: %d / %d (errors %d)%n", firstByteMillis.size(), clients, failed.get());
+        System.out.printf("time to first byte ms: p50=%d p99=%d%n",
+                percentile(firstByteMillis, 50), percentile(firstByteMillis, 99));
+        System.out.printf("probe ms: p50=%d p99=%d max=%d timeouts=%d%n",
+                percentile(probeMillis, 50), percentile(probeMillis, 99), percentile(probeMillis, 100), probeTimeouts);
+        System.out.printf("total bytes read: %d%n", bytes.get());
+    }
+
+    /** GET qua socket thô với bộ đệm nhận nhỏ, đọc theo tốc độ giới hạn để server bị chặn khi ghi. */
+    private static void slowDownload(URI base, String token, long docId, int bytesPerSecond, long deadline,
+                                     List<Long> firstByteMillis, AtomicLong bytes) throws Exception {
+        int port = base.getPort() < 0 ? 80 : base.getPort();
+        try(Socket socket = new Socket()){
+            socket.setReceiveBufferSize(4096);
+            socket.connect(new InetSocketAddress(base.getHost(), port), 5000);
+            socket.setSoTimeout((int) Math.max(1000, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /api/documents/download/" + docId + " HTTP/1.1\r\n"
+                    + "Host: " + base.getHost() + ":" + port + "\r\n"
+                    + "Authorization: Bearer " + token + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            long t0 = System.nanoTime();
+            InputStream in = socket.getInputStream();
+            byte[] buf = new byte[1024];
+            int n = in.read(buf);
+            if(n > 0) firstByteMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+            while(n > 0 && System.nanoTime() < deadline){
+                bytes.addAndGet(n);
+                Thread.sleep(Math.max(1, 1000L * n / bytesPerSecond));
+                n = in.read(buf);
+            }
+        }
+    }
+
+    private static long percentile(List<Long> values, int p) {
+        if(values.isEmpty()) return -1;
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+}
@@ -0,0 +1,58 @@
+package com.doc_manager.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocumentCursorTest {
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void roundTripsKeepingNanosecondsAndId() {
+        DocumentCursor cursor = new DocumentCursor(Instant.parse("2026-03-01T10:15:30.123456789Z"), 42L);
+        String encoded = cursor.encode();
+
+        assertThat(encoded).doesNotContain("=", "+", "/");
+        assertThat(DocumentCursor.decode(encoded)).isEqualTo(cursor);
+    }
+
+    @Test
+    void documentsWithTheSameTimestampGetDistinctCursors() {
+        Instant at = Instant.parse("2026-03-01T10:15:30Z");
+        assertThat(new DocumentCursor(at, 7L).encode()).isNotEqualTo(new DocumentCursor(at, 8L).encode());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "not base64!", "MjAyNg"})
+    void rejectsGarbage(String cursor) {
+        assertThatThrownBy(() -> DocumentCursor.decode(cursor)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "2026-03-01T10:15:30Z",          // thiếu id
+            "2026-03-01T10:15:30Z|",         // id rỗng
+            "2026-03-01T10:15:30Z|abc",      // id không phải số
+            "2026-03-01T10:15:30Z|1|2",      // thừa phần
+            "2026-03-01|1",                  // không phải Instant
+            "|1",
+            "2026-03-01T10:15:30Z|1; drop table document"})
+    void rejectsTamperedContent(String raw) {
+        assertThatThrownBy(() -> DocumentCursor.decode(encodeRaw(raw))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsNull() {
+        assertThatThrownBy(() -> DocumentCursor.decode(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,74 @@
+package com.doc_manager.repository;
+
+import com.doc_manager.response.DocumentSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DocumentQueryRepositoryImplTest {
+
+    private final EntityManager em = mock(EntityManager.class);
+    @SuppressWarnings("unchecked")
+    private final TypedQuery<DocumentSummary> query = mock(TypedQuery.class, RETURNS_SELF);
+    private final DocumentQueryRepositoryImpl repository = new DocumentQueryRepositoryImpl();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(repository, "em", em);
+        when(em.createQuery(anyString(), eq(DocumentSummary.class))).thenReturn(query);
+    }
+
+    private String jpql() {
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(em).createQuery(captor.capture(), eq(DocumentSummary.class));
+        return captor.getValue().replaceAll("\\s+", " ");
+    }
+
+    @Test
+    void pagesAfterTheCursorWithIdAsTieBreak() {
+        Instant at = Instant.parse("2026-03-01T10:15:30Z");
+        repository.findVisible("alice", new DocumentCursor(at, 42L), null, null, 51);
+
+        // cùng uploadedAt thì chỉ lấy id nhỏ hơn: không lặp và không bỏ sót dòng trùng thời điểm
+        assertThat(jpql())
+                .contains("and (d.uploadedAt < :afterAt or (d.uploadedAt = :afterAt and d.id < :afterId))")
+                .endsWith("order by d.uploadedAt desc, d.id desc");
+        verify(query).setParameter("afterAt", at);
+        verify(query).setParameter("afterId", 42L);
+        verify(query).setMaxResults(51);
+    }
+
+    @Test
+    void firstPageHasNoCursorCondition() {
+        repository.findVisible("alice", null, null, null, 51);
+
+        assertThat(jpql()).doesNotContain(":afterAt").doesNotContain(":title");
+        verify(query, never()).setParameter(eq("afterAt"), any());
+    }
+
+    @Test
+    void titleFilterEscapesLikeWildcards() {
+        repository.findVisible("alice", null, null, "50%_Off\\Q1!", 51);
+
+        assertThat(jpql()).contains("and lower(d.title) like :title escape '!'");
+        verify(query).setParameter("title", "%50!%!_off\\q1!!%");
+    }
+
+    @Test
+    void escapeLikeOnlyTouchesWildcardsAndTheEscapeChar() {
+        assertThat(DocumentQueryRepositoryImpl.escapeLike("100%")).isEqualTo("100!%");
+        assertThat(DocumentQueryRepositoryImpl.escapeLike("a_b")).isEqualTo("a!_b");
+        assertThat(DocumentQueryRepositoryImpl.escapeLike("wow!")).isEqualTo("wow!!");
+        assertThat(DocumentQueryRepositoryImpl.escapeLike("C:\\docs\\%")).isEqualTo("C:\\docs\\!%");
+        assertThat(DocumentQueryRepositoryImpl.escapeLike("tài liệu")).isEqualTo("tài liệu");
+    }
+}
@@ -0,0 +1,134 @@
+package com.doc_manager.service;
+
+import io.minio.Result;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StorageReconcilerTest {
+
+    private static final Instant CUTOFF = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant OLD = CUTOFF.minusSeconds(3600);
+
+    private final List<String> enqueued = new ArrayList<>();
+
+    /** Object trong listing giả của bucket. */
+    private static Item object(String name, Instant lastModified) {
+        return new Item() {
+            @Override public String objectName() { return name; }
+            @Override public ZonedDateTime lastModified() { return lastModified.atZone(ZoneOffset.UTC); }
+            @Override public boolean isDir() { return name.endsWith("/"); }
+        };
+    }
+
+    private static Iterator<Result<Item>> bucket(Item... items) {
+        return Arrays.stream(items).map(Result::new).iterator();
+    }
+
+    private StorageReconciler.Merge merge(Iterator<Result<Item>> bucket) {
+        return new StorageReconciler.Merge(bucket, name -> name.startsWith("renditions/"), enqueued::addAll, CUTOFF);
+    }
+
+    @Test
+    void enqueuesUnreferencedObjectsAndReportsMissingOnes() {
+        StorageReconciler.Merge merge = merge(bucket(object("a", OLD), object("b", OLD), object("c", OLD),
+                object("e", OLD)));
+        merge.row("a", true);
+        merge.row("c", true);
+        merge.row("d", true);   // document trỏ tới object không còn
+        merge.row("d2", false); // chỉ còn trong blobs/hàng đợi xóa: không tính là thiếu
+        merge.finish();
+
+        assertThat(enqueued).containsExactly("b", "e");
+        assertThat(merge.orphans).isEqualTo(2);
+        assertThat(merge.missing).isEqualTo(1);
+        assertThat(merge.missingSamples).containsExactly("d");
+        assertThat(merge.scanned).isEqualTo(4);
+    }
+
+    @Test
+    void keepsObjectsNewerThanTheGracePeriod() {
+        StorageReconciler.Merge merge = merge(bucket(object("a", CUTOFF.plusSeconds(1)), object("b", OLD),
+                object("c", CUTOFF.plusSeconds(60))));
+        merge.finish();
+
+        assertThat(enqueued).containsExactly("b");
+        assertThat(merge.orphans).isEqualTo(1);
+    }
+
+    @Test
+    void skipsExcludedPrefixesAndDirectories() {
+        StorageReconciler.Merge merge = merge(bucket(object("a", OLD), object("dir/", OLD),
+                object("renditions/a/thumbnail.png", OLD), object("z", OLD)));
+        merge.row("a", true);
+        merge.row("z", true);
+        merge.finish();
+
+        assertThat(enqueued).isEmpty();
+        assertThat(merge.scanned).isEqualTo(2);
+    }
+
+    @Test
+    void duplicateRowsMatchTheObjectOnce() {
+        StorageReconciler.Merge merge = merge(bucket(object("a", OLD), object("b", OLD)));
+        merge.row("a", true);
+        merge.row("a", true);
+        merge.row("b", false);
+        merge.finish();
+
+        assertThat(enqueued).isEmpty();
+        assertThat(merge.missing).isZero();
+    }
+
+    @Test
+    void followsByteOrderForNonAsciiNames() {
+        // thứ tự UTF-8: "Z" < "a" < "é" < "文" < emoji; String.compareTo xếp emoji (surrogate) trước "｡"
+        StorageReconciler.Merge merge = merge(bucket(object("uploads/Z", OLD), object("uploads/a", OLD),
+                object("uploads/é", OLD), object("uploads/文", OLD), object("uploads/｡", OLD),
+                object("uploads/😀", OLD)));
+        merge.row("uploads/Z", true);
+        merge.row("uploads/é", true);
+        merge.row("uploads/｡", true);
+        merge.row("uploads/😀", true);
+        merge.finish();
+
+        assertThat(enqueued).containsExactly("uploads/a", "uploads/文");
+        assertThat(merge.missing).isZero();
+    }
+
+    @Test
+    void stopsWhenRowsAreOutOfOrder() {
+        StorageReconciler.Merge merge = merge(bucket(object("a", OLD), object("b", OLD), object("c", OLD)));
+        merge.row("c", true);
+        assertThatThrownBy(() -> merge.row("b", true)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void stopsWhenTheBucketListingIsOutOfOrder() {
+        StorageReconciler.Merge merge = merge(bucket(object("b", OLD), object("a", OLD)));
+        assertThatThrownBy(() -> merge.row("b", true)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void compareNamesUsesUnsignedUtf8Bytes() {
+        assertThat(StorageReconciler.compareNames("Z", "a")).isNegative();
+        assertThat(StorageReconciler.compareNames("a", "á")).isNegative();
+        assertThat(StorageReconciler.compareNames("á", "b")).isPositive();
+        assertThat(StorageReconciler.compareNames("é", "文")).isNegative();
+        assertThat(StorageReconciler.compareNames("tài liệu", "tài liệu")).isZero();
+        // khác String.compareTo (UTF-16): ký tự ngoài BMP đứng sau U+FF61 theo byte
+        assertThat("｡".compareTo("😀")).isPositive();
+        assertThat(StorageReconciler.compareNames("｡", "😀")).isNegative();
+        assertThat(StorageReconciler.compareNames("a", "ab")).isNegative();
+    }
+}